@@ -0,0 +1,107 @@
+package com.daegonner.lms.benchmark;
+
+import com.daegonner.lms.ArenaRecord;
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.model.*;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the two phases of loading arenas at startup, once the models are
+ * fetched: decoding them off the server thread, and binding the decoded
+ * arenas to their worlds on the server thread. The fetch itself depends on
+ * the database and is not covered.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArenaLoadBenchmark {
+
+    private static final int SPAWNS = 8;
+
+    @Param({"1000", "10000"})
+    private int arenas;
+
+    private List<ArenaModel> models;
+    private List<ArenaRecord> records;
+    private Map<String, World> worlds;
+
+    @Setup
+    public void setup() {
+        worlds = new HashMap<>();
+        List<WorldModel> worldModels = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String name = "world" + i;
+            worlds.put(name, Stubs.world(name));
+            WorldModel world = new WorldModel();
+            world.setName(name);
+            worldModels.add(world);
+        }
+
+        models = new ArrayList<>(arenas);
+        for (int i = 0; i < arenas; i++) {
+            WorldModel world = worldModels.get(i % worldModels.size());
+            RegionModel region = new RegionModel();
+            region.setMax(blockPos(world, i * 300 + 200, 255, 200));
+            region.setMin(blockPos(world, i * 300, 0, 0));
+
+            ArenaModel arena = new ArenaModel();
+            arena.setId(i + 1);
+            arena.setName("arena" + i);
+            arena.setRegion(region);
+
+            List<ArenaSpawnModel> spawns = new ArrayList<>(SPAWNS);
+            for (int j = 0; j < SPAWNS; j++) {
+                EntityPosModel pos = new EntityPosModel();
+                pos.setWorld(world);
+                pos.setX(i * 300 + 10 + j * 20 + 0.5);
+                pos.setY(64);
+                pos.setZ(10 + j * 20 + 0.5);
+                ArenaSpawnModel spawn = new ArenaSpawnModel();
+                spawn.setArena(arena);
+                spawn.setEntityPos(pos);
+                spawns.add(spawn);
+            }
+            arena.setSpawns(spawns);
+            models.add(arena);
+        }
+
+        records = decode();
+    }
+
+    private static BlockPosModel blockPos(WorldModel world, int x, int y, int z) {
+        BlockPosModel pos = new BlockPosModel();
+        pos.setWorld(world);
+        pos.setX(x);
+        pos.setY(y);
+        pos.setZ(z);
+        return pos;
+    }
+
+    @Benchmark
+    public List<ArenaRecord> decode() {
+        List<ArenaRecord> target = new ArrayList<>(models.size());
+        for (ArenaModel model : models) {
+            target.add(ArenaRecord.decode(model));
+        }
+        return target;
+    }
+
+    @Benchmark
+    public List<Arena> bind() {
+        List<Arena> target = new ArrayList<>(records.size());
+        for (ArenaRecord record : records) {
+            target.add(record.bind(worlds::get));
+        }
+        return target;
+    }
+}
@@ -0,0 +1,27 @@
+package com.daegonner.lms.benchmark;
+
+import com.daegonner.lms.util.DurationUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures formatting the durations announced by lobby countdowns. The
+ * longest duration is too long to be cached.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DurationUtilsBenchmark {
+
+    @Param({"1", "30", "90", "300", "3600", "90061"})
+    private int seconds;
+
+    @Benchmark
+    public String format() {
+        return DurationUtils.format(seconds);
+    }
+}
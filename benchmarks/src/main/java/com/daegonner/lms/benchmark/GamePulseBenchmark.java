@@ -0,0 +1,92 @@
+package com.daegonner.lms.benchmark;
+
+import com.daegonner.lms.LastManStandingPlugin;
+import com.daegonner.lms.Messenger;
+import com.daegonner.lms.SnapshotJournal;
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.ArenaSpawn;
+import com.daegonner.lms.entity.BlockPos;
+import com.daegonner.lms.entity.Game;
+import com.daegonner.lms.entity.Region;
+import com.daegonner.lms.metrics.Metrics;
+import com.daegonner.lms.settings.ArenaSettings;
+import com.daegonner.lms.settings.Kit;
+import com.daegonner.lms.settings.Settings;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures a game pulse once every player is in the arena, with every player
+ * still inside so none are removed. A sweep interval of one runs the full
+ * boundary sweep on every pulse.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GamePulseBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int players;
+
+    @Param({"1", "20"})
+    private int sweepInterval;
+
+    private Game game;
+
+    @Setup
+    public void setup() {
+        // Settings creates its default items when first loaded.
+        Stubs.installServer();
+
+        World world = Stubs.world("arena");
+        Region region = Region.create(new BlockPos(world, -100, 0, -100), new BlockPos(world, 100, 255, 100));
+        Arena arena = new Arena("benchmark", region);
+        arena.getSpawns().add(new ArenaSpawn(world, 0.5, 64, 0.5, 0, 0));
+
+        Settings settings = mock(Settings.class);
+        when(settings.getBoundarySweepInterval()).thenReturn(sweepInterval);
+        when(settings.getStartBatchSize()).thenReturn(Integer.MAX_VALUE);
+
+        ArenaSettings arenaSettings = mock(ArenaSettings.class);
+        when(arenaSettings.getKit()).thenReturn(Kit.compile(Collections.emptyList(), null, null, null, null));
+
+        LastManStandingPlugin plugin = mock(LastManStandingPlugin.class);
+        Metrics metrics = new Metrics(plugin);
+        when(plugin.getSettings()).thenReturn(settings);
+        when(plugin.getMetrics()).thenReturn(metrics);
+        when(plugin.getSnapshotJournal()).thenReturn(mock(SnapshotJournal.class));
+        when(plugin.getMessenger()).thenReturn(mock(Messenger.class));
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("lms-benchmark"));
+
+        Random random = new Random(0);
+        Set<Player> queue = new LinkedHashSet<>();
+        for (int i = 0; i < players; i++) {
+            Location location = new Location(world, random.nextInt(180) - 90, 64, random.nextInt(180) - 90);
+            queue.add(Stubs.player("player" + i, location));
+        }
+
+        game = new Game(plugin, arena, queue);
+        game.start(arenaSettings);
+    }
+
+    @Benchmark
+    public Game pulse() {
+        game.pulse();
+        return game;
+    }
+}
@@ -0,0 +1,29 @@
+package com.daegonner.lms.benchmark;
+
+import com.daegonner.lms.util.GenericUtils;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing enum names as written in the configuration, including
+ * names needing normalising and names which do not exist.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenericUtilsBenchmark {
+
+    @Param({"DIAMOND_SWORD", "diamond sword", "not a material"})
+    private String name;
+
+    @Benchmark
+    public Optional<Material> parseEnum() {
+        return GenericUtils.parseEnum(Material.class, name);
+    }
+}
@@ -0,0 +1,54 @@
+package com.daegonner.lms.benchmark;
+
+import com.daegonner.lms.util.ItemFactory;
+import com.daegonner.lms.util.ItemFactoryBuilder;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating reward items. Item meta is served by a mock item factory,
+ * so this covers the work done by LMS and the Bukkit API, not the server's
+ * own item meta implementation. Enchantments are left out, as they cannot be
+ * resolved without a server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemFactoryBenchmark {
+
+    private ItemFactory plain;
+    private ItemFactory named;
+
+    @Setup
+    public void setup() {
+        Stubs.installServer();
+        plain = new ItemFactoryBuilder()
+                .material(Material.ARROW)
+                .min(16)
+                .build();
+        named = new ItemFactoryBuilder()
+                .material(Material.CHEST)
+                .name("&6Reward Crate")
+                .addLore("&7Right click to open")
+                .addLore("&7Won in a game of LMS")
+                .min(1)
+                .max(4)
+                .build();
+    }
+
+    @Benchmark
+    public ItemStack plain() {
+        return plain.forceCreate();
+    }
+
+    @Benchmark
+    public ItemStack named() {
+        return named.forceCreate();
+    }
+}
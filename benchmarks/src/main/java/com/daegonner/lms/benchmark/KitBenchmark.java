@@ -0,0 +1,66 @@
+package com.daegonner.lms.benchmark;
+
+import com.daegonner.lms.settings.Kit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures applying a compiled kit to the inventories of a game's worth of
+ * players, for an empty kit and a full kit of armour, items and potions.
+ * Potions are plain items, as their effects live in item meta which cannot
+ * be created without a server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KitBenchmark {
+
+    private static final int INVENTORIES = 100;
+
+    @Param({"empty", "full"})
+    private String kit;
+
+    private Kit compiled;
+    private PlayerInventory[] inventories;
+
+    @Setup
+    public void setup() {
+        Stubs.installServer();
+        if (kit.equals("empty")) {
+            compiled = Kit.compile(Collections.emptyList(), null, null, null, null);
+        } else {
+            compiled = Kit.compile(Arrays.asList(
+                    new ItemStack(Material.DIAMOND_SWORD),
+                    new ItemStack(Material.BOW),
+                    new ItemStack(Material.ARROW, 64),
+                    new ItemStack(Material.GOLDEN_APPLE, 8),
+                    new ItemStack(Material.COOKED_BEEF, 32),
+                    new ItemStack(Material.SPLASH_POTION, 24),
+                    new ItemStack(Material.POTION, 4)
+            ), new ItemStack(Material.DIAMOND_HELMET), new ItemStack(Material.DIAMOND_CHESTPLATE),
+                    new ItemStack(Material.DIAMOND_LEGGINGS), new ItemStack(Material.DIAMOND_BOOTS));
+        }
+
+        inventories = new PlayerInventory[INVENTORIES];
+        for (int i = 0; i < INVENTORIES; i++) {
+            inventories[i] = Stubs.inventory();
+        }
+    }
+
+    @Benchmark
+    public PlayerInventory[] apply() {
+        for (PlayerInventory inventory : inventories) {
+            compiled.apply(inventory);
+        }
+        return inventories;
+    }
+}
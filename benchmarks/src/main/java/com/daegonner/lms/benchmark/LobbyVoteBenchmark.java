@@ -0,0 +1,76 @@
+package com.daegonner.lms.benchmark;
+
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.BlockPos;
+import com.daegonner.lms.entity.Lobby;
+import com.daegonner.lms.entity.Region;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading the leading arena of a lobby, and the cost of a vote
+ * changing hands, with votes spread across many arenas.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LobbyVoteBenchmark {
+
+    @Param({"100", "1000"})
+    private int players;
+
+    @Param({"5", "50"})
+    private int arenas;
+
+    private Lobby lobby;
+    private Arena[] arenaList;
+    private Player[] playerList;
+    private int[] votes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        World world = Stubs.world("arena");
+        arenaList = new Arena[arenas];
+        for (int i = 0; i < arenas; i++) {
+            Region region = Region.create(new BlockPos(world, i * 100, 0, 0), new BlockPos(world, i * 100 + 50, 255, 50));
+            arenaList[i] = new Arena("arena" + i, region);
+        }
+
+        lobby = new Lobby(1, System.currentTimeMillis());
+        playerList = new Player[players];
+        votes = new int[players];
+        for (int i = 0; i < players; i++) {
+            playerList[i] = Stubs.player("player" + i, new Location(world, 0, 64, 0));
+            lobby.getPlayerQueue().add(playerList[i]);
+            votes[i] = i % arenas;
+            lobby.vote(playerList[i], arenaList[votes[i]]);
+        }
+    }
+
+    @Benchmark
+    public Optional<Arena> highestVotedArena() {
+        return lobby.getHighestVotedArena();
+    }
+
+    /**
+     * Moves one vote to the next arena along, cycling through every player,
+     * which regularly overtakes or dethrones the leader.
+     */
+    @Benchmark
+    public Optional<Arena> changeVote() {
+        int index = next;
+        next = (next + 1) % players;
+        votes[index] = (votes[index] + 1) % arenas;
+        lobby.vote(playerList[index], arenaList[votes[index]]);
+        return lobby.getHighestVotedArena();
+    }
+}
@@ -0,0 +1,53 @@
+package com.daegonner.lms.benchmark;
+
+import com.daegonner.lms.entity.BlockPos;
+import com.daegonner.lms.entity.Region;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the region containment check run for every player on every
+ * boundary sweep and movement. None of the checks should allocate, which
+ * running with {@code -prof gc} shows as a {@code gc.alloc.rate.norm} of
+ * about 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegionBenchmark {
+
+    private Region region;
+    private Location inside;
+    private Location outside;
+    private Location otherWorld;
+
+    @Setup
+    public void setup() {
+        World world = Stubs.world("arena");
+        region = Region.create(new BlockPos(world, -100, 0, -100), new BlockPos(world, 100, 255, 100));
+        inside = new Location(world, 12.5, 64, -40.5);
+        outside = new Location(world, 250.5, 64, -40.5);
+        otherWorld = new Location(Stubs.world("lobby"), 12.5, 64, -40.5);
+    }
+
+    @Benchmark
+    public boolean inside() {
+        return region.isInside(inside);
+    }
+
+    @Benchmark
+    public boolean outside() {
+        return region.isInside(outside);
+    }
+
+    @Benchmark
+    public boolean otherWorld() {
+        return region.isInside(otherWorld);
+    }
+}
@@ -0,0 +1,148 @@
+package com.daegonner.lms.benchmark;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.EbeanServerFactory;
+import com.avaje.ebean.config.DataSourceConfig;
+import com.avaje.ebean.config.ServerConfig;
+import com.avaje.ebean.config.dbplatform.SQLitePlatform;
+import com.avaje.ebeaninternal.server.lib.sql.TransactionIsolation;
+import com.daegonner.lms.ArenaRecord;
+import com.daegonner.lms.LastManStandingPlugin;
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.ArenaSpawn;
+import com.daegonner.lms.entity.BlockPos;
+import com.daegonner.lms.entity.Region;
+import com.daegonner.lms.model.*;
+import com.daegonner.lms.storage.EbeanStorage;
+import com.daegonner.lms.storage.SqliteStorage;
+import com.daegonner.lms.storage.Storage;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the throughput of each storage backend on the same SQLite
+ * database engine: loading every arena with its spawns, as done at startup,
+ * and saving a new arena with its spawns, as done by the admin commands.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    private static final int SPAWNS = 8;
+
+    @Param({"ebean", "sqlite"})
+    private String storageType;
+
+    @Param({"100", "1000"})
+    private int arenas;
+
+    private final World world = Stubs.world("world");
+    private File directory;
+    private Storage storage;
+    private int nextArena;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("lms-storage").toFile();
+        File file = new File(directory, "lms.db");
+        if (storageType.equals("sqlite")) {
+            storage = new SqliteStorage(file, Logger.getLogger("LMS benchmark"));
+        } else {
+            LastManStandingPlugin plugin = mock(LastManStandingPlugin.class);
+            when(plugin.getDatabase()).thenReturn(ebean(file));
+            when(plugin.getModelCache()).thenReturn(new ModelCache());
+            when(plugin.getLogger()).thenReturn(Logger.getLogger("LMS benchmark"));
+            storage = new EbeanStorage(plugin, () -> {
+            });
+        }
+        storage.open();
+
+        storage.inTransaction(() -> {
+            while (nextArena < arenas) {
+                save(nextArena++);
+            }
+        });
+    }
+
+    /**
+     * Creates an Ebean server the way Bukkit does for a plugin using SQLite,
+     * creating the tables of every model.
+     *
+     * @param file the database file.
+     * @return the server.
+     */
+    private static EbeanServer ebean(File file) {
+        DataSourceConfig dataSource = new DataSourceConfig();
+        dataSource.setDriver("org.sqlite.JDBC");
+        dataSource.setUrl("jdbc:sqlite:" + file.getAbsolutePath());
+        dataSource.setUsername("bukkit");
+        dataSource.setPassword("walrus");
+        dataSource.setIsolationLevel(TransactionIsolation.getLevel("SERIALIZABLE"));
+
+        ServerConfig config = new ServerConfig();
+        config.setName("lms");
+        config.setDefaultServer(false);
+        config.setRegister(false);
+        config.setDataSourceConfig(dataSource);
+        config.setDatabasePlatform(new SQLitePlatform());
+        config.getDatabasePlatform().getDbDdlSyntax().setIdentity("");
+        config.setClasses(Arrays.asList(WorldModel.class, BlockPosModel.class, RegionModel.class,
+                ArenaModel.class, EntityPosModel.class, ArenaSpawnModel.class, LobbyScheduleModel.class));
+        config.setDdlGenerate(true);
+        config.setDdlRun(true);
+        return EbeanServerFactory.create(config);
+    }
+
+    @TearDown
+    public void tearDown() {
+        storage.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private int save(int index) {
+        int minX = index * 300;
+        Arena arena = new Arena("arena" + index, Region.create(new BlockPos(world, minX, 0, 0),
+                new BlockPos(world, minX + 200, 255, 200)));
+        int id = storage.createArena(arena);
+        for (int i = 0; i < SPAWNS; i++) {
+            ArenaSpawn spawn = new ArenaSpawn(world, minX + 10 + i * 20 + 0.5, 64, 10 + i * 20 + 0.5, i * 45, 0);
+            storage.addSpawn(id, spawn);
+        }
+        return id;
+    }
+
+    @Benchmark
+    public List<ArenaRecord> load() {
+        return storage.loadArenas(true);
+    }
+
+    /**
+     * Saves a new arena with its spawns in one transaction, then deletes it
+     * so the number of stored arenas stays the same.
+     */
+    @Benchmark
+    public void save() {
+        storage.inTransaction(() -> storage.deleteArena(save(nextArena++)));
+    }
+}
@@ -0,0 +1,203 @@
+package com.daegonner.lms.benchmark;
+
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Headless stand-ins for the Bukkit types the benchmarks touch. Players and
+ * worlds are plain dynamic proxies rather than mocks, as they are called on
+ * every iteration and mocks would dominate the measurement.
+ */
+public final class Stubs {
+
+    private static boolean serverInstalled;
+
+    private Stubs() {
+    }
+
+    /**
+     * Installs a mock server for code calling {@link Bukkit} statically,
+     * such as item meta creation. Only the first call has any effect.
+     */
+    public static synchronized void installServer() {
+        if (serverInstalled) {
+            return;
+        }
+
+        ItemMeta meta = mock(ItemMeta.class);
+        when(meta.clone()).thenReturn(meta);
+
+        ItemFactory itemFactory = mock(ItemFactory.class);
+        when(itemFactory.getItemMeta(any())).thenReturn(meta);
+        when(itemFactory.isApplicable(any(ItemMeta.class), any(ItemStack.class))).thenReturn(true);
+        when(itemFactory.isApplicable(any(ItemMeta.class), any(Material.class))).thenReturn(true);
+        when(itemFactory.asMetaFor(any(ItemMeta.class), any(ItemStack.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(itemFactory.asMetaFor(any(ItemMeta.class), any(Material.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(itemFactory.equals(any(ItemMeta.class), any(ItemMeta.class))).thenReturn(true);
+
+        Server server = mock(Server.class);
+        when(server.getLogger()).thenReturn(Logger.getLogger("lms-benchmark"));
+        when(server.getName()).thenReturn("lms-benchmark");
+        when(server.getVersion()).thenReturn("1.10.2");
+        when(server.getBukkitVersion()).thenReturn("1.10.2-R0.1-SNAPSHOT");
+        when(server.getItemFactory()).thenReturn(itemFactory);
+        Bukkit.setServer(server);
+        serverInstalled = true;
+    }
+
+    /**
+     * Creates a world which only knows its name.
+     *
+     * @param name the world name.
+     * @return the world.
+     */
+    public static World world(String name) {
+        return (World) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[]{World.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return name;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "World{" + name + "}";
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    /**
+     * Creates a player standing still at a location. Teleports always
+     * succeed but never move the player, so they stay where they were
+     * created for the whole benchmark.
+     *
+     * @param name     the player name.
+     * @param location the location of the player.
+     * @return the player.
+     */
+    public static Player player(String name, Location location) {
+        UUID uuid = UUID.nameUUIDFromBytes(name.getBytes());
+        PlayerInventory inventory = inventory();
+        return (Player) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[]{Player.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getLocation":
+                            if (args == null) {
+                                return location.clone();
+                            }
+                            Location target = (Location) args[0];
+                            target.setWorld(location.getWorld());
+                            target.setX(location.getX());
+                            target.setY(location.getY());
+                            target.setZ(location.getZ());
+                            target.setYaw(location.getYaw());
+                            target.setPitch(location.getPitch());
+                            return target;
+                        case "getWorld":
+                            return location.getWorld();
+                        case "getName":
+                            return name;
+                        case "getUniqueId":
+                            return uuid;
+                        case "getInventory":
+                            return inventory;
+                        case "getActivePotionEffects":
+                            return Collections.emptyList();
+                        case "getGameMode":
+                            return GameMode.SURVIVAL;
+                        case "isOnline":
+                        case "teleport":
+                            return true;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "Player{" + name + "}";
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    /**
+     * Creates an empty player inventory. Like the server's own inventories,
+     * it copies every item set in it and returns copies of its contents.
+     *
+     * @return the inventory.
+     */
+    public static PlayerInventory inventory() {
+        ItemStack[] contents = new ItemStack[41];
+        return (PlayerInventory) Proxy.newProxyInstance(Stubs.class.getClassLoader(),
+                new Class<?>[]{PlayerInventory.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getContents":
+                            return copy(contents, new ItemStack[contents.length]);
+                        case "setContents":
+                            Arrays.fill(contents, null);
+                            copy((ItemStack[]) args[0], contents);
+                            return null;
+                        case "getSize":
+                            return 41;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static ItemStack[] copy(ItemStack[] items, ItemStack[] target) {
+        for (int i = 0; i < items.length && i < target.length; i++) {
+            target[i] = items[i] == null ? null : items[i].clone();
+        }
+        return target;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        } else if (type == boolean.class) {
+            return false;
+        } else if (type == float.class) {
+            return 0F;
+        } else if (type == double.class) {
+            return 0D;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
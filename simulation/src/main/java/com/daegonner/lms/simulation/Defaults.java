@@ -0,0 +1,38 @@
+package com.daegonner.lms.simulation;
+
+/**
+ * Default return values for stubbed methods.
+ */
+final class Defaults {
+
+    private Defaults() {
+    }
+
+    /**
+     * Gets the default value of a type, {@code null} for objects and zero
+     * or {@code false} for primitives.
+     *
+     * @param type the type.
+     * @return the default value.
+     */
+    static Object of(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        } else if (type == boolean.class) {
+            return false;
+        } else if (type == float.class) {
+            return 0F;
+        } else if (type == double.class) {
+            return 0D;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
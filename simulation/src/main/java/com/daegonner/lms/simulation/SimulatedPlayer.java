@@ -0,0 +1,247 @@
+package com.daegonner.lms.simulation;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * A fake player with just enough state to take part in LMS: a location, a
+ * game mode and an inventory. Teleports fire a {@link PlayerTeleportEvent}
+ * as they would on a real server, and chat is counted rather than sent.
+ */
+public class SimulatedPlayer implements InvocationHandler {
+
+    private static final int INVENTORY_SIZE = 41;
+
+    private final SimulatedServer server;
+    private final String name;
+    private final UUID uuid;
+    private final Player proxy;
+    private final PlayerInventory inventory;
+    private final Player.Spigot spigot;
+    private ItemStack[] contents = new ItemStack[INVENTORY_SIZE];
+    private Location location;
+    private GameMode gameMode = GameMode.SURVIVAL;
+    private boolean online = true;
+    private long messagesReceived = 0;
+    private long packetsReceived = 0;
+
+    public SimulatedPlayer(SimulatedServer server, String name, Location location) {
+        this.server = server;
+        this.name = name;
+        this.uuid = UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes(StandardCharsets.UTF_8));
+        this.location = location.clone();
+        this.proxy = (Player) Proxy.newProxyInstance(SimulatedPlayer.class.getClassLoader(),
+                new Class<?>[]{Player.class}, this);
+        this.inventory = (PlayerInventory) Proxy.newProxyInstance(SimulatedPlayer.class.getClassLoader(),
+                new Class<?>[]{PlayerInventory.class}, this::invokeInventory);
+        this.spigot = new Player.Spigot() {
+            @Override
+            public void respawn() {
+            }
+
+            @Override
+            public void sendMessage(BaseComponent component) {
+                receive(1);
+            }
+
+            @Override
+            public void sendMessage(BaseComponent... components) {
+                receive(1);
+            }
+        };
+    }
+
+    /**
+     * Gets the player as seen by the plugin.
+     *
+     * @return the player.
+     */
+    public Player getProxy() {
+        return proxy;
+    }
+
+    /**
+     * Gets the current location of the player.
+     *
+     * @return the location, which must not be modified.
+     */
+    public Location getLocation() {
+        return location;
+    }
+
+    /**
+     * Moves the player without firing any event.
+     *
+     * @param location the new location.
+     */
+    public void setLocation(Location location) {
+        this.location = location.clone();
+    }
+
+    /**
+     * Sets if the player is online.
+     *
+     * @param online {@code true} if online.
+     */
+    public void setOnline(boolean online) {
+        this.online = online;
+    }
+
+    /**
+     * Gets the number of chat messages sent to this player.
+     *
+     * @return the messages received.
+     */
+    public long getMessagesReceived() {
+        return messagesReceived;
+    }
+
+    /**
+     * Gets the number of chat packets sent to this player.
+     *
+     * @return the packets received.
+     */
+    public long getPacketsReceived() {
+        return packetsReceived;
+    }
+
+    private void receive(int messages) {
+        messagesReceived += messages;
+        packetsReceived++;
+    }
+
+    private boolean teleport(Location to) {
+        PlayerTeleportEvent event = new PlayerTeleportEvent(proxy, location.clone(), to.clone());
+        server.callEvent(event);
+        if (event.isCancelled()) {
+            return false;
+        }
+
+        location = event.getTo().clone();
+        return true;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "getName":
+            case "getDisplayName":
+            case "getPlayerListName":
+                return name;
+            case "getUniqueId":
+                return uuid;
+            case "getServer":
+                return server.getProxy();
+            case "getWorld":
+                return location.getWorld();
+            case "getLocation":
+                if (args == null) {
+                    return location.clone();
+                }
+                Location target = (Location) args[0];
+                if (target != null) {
+                    target.setWorld(location.getWorld());
+                    target.setX(location.getX());
+                    target.setY(location.getY());
+                    target.setZ(location.getZ());
+                    target.setYaw(location.getYaw());
+                    target.setPitch(location.getPitch());
+                }
+                return target;
+            case "teleport":
+                return args[0] instanceof Location && teleport((Location) args[0]);
+            case "getGameMode":
+                return gameMode;
+            case "setGameMode":
+                gameMode = (GameMode) args[0];
+                return null;
+            case "getInventory":
+                return inventory;
+            case "getActivePotionEffects":
+                return Collections.emptyList();
+            case "addPotionEffects":
+            case "addPotionEffect":
+                return true;
+            case "sendMessage":
+                if (args[0] instanceof String[]) {
+                    for (String ignored : (String[]) args[0]) {
+                        receive(1);
+                    }
+                } else {
+                    receive(1);
+                }
+                return null;
+            case "spigot":
+                return spigot;
+            case "isOnline":
+                return online;
+            case "isOp":
+            case "hasPermission":
+            case "isPermissionSet":
+                return true;
+            case "isDead":
+                return false;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "SimulatedPlayer{" + name + "}";
+            default:
+                return Defaults.of(method.getReturnType());
+        }
+    }
+
+    private Object invokeInventory(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getSize":
+                return INVENTORY_SIZE;
+            case "getContents":
+            case "getStorageContents":
+                return contents.clone();
+            case "setContents":
+                ItemStack[] items = (ItemStack[]) args[0];
+                contents = Arrays.copyOf(items, INVENTORY_SIZE);
+                return null;
+            case "clear":
+                if (args == null) {
+                    Arrays.fill(contents, null);
+                }
+                return null;
+            case "addItem":
+                for (ItemStack item : (ItemStack[]) args[0]) {
+                    for (int i = 0; i < contents.length; i++) {
+                        if (contents[i] == null) {
+                            contents[i] = item;
+                            break;
+                        }
+                    }
+                }
+                return new HashMap<Integer, ItemStack>();
+            case "getHolder":
+                return this.proxy;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "SimulatedInventory{" + name + "}";
+            default:
+                return Defaults.of(method.getReturnType());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.daegonner.lms.simulation;
+
+import com.daegonner.lms.LastManStandingPlugin;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.InvalidDescriptionException;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * LMS loaded from the class path of the simulation rather than by a server.
+ */
+public class SimulatedPlugin extends LastManStandingPlugin {
+
+    private final Command command = new Command("lms") {
+        @Override
+        public boolean execute(CommandSender sender, String label, String[] args) {
+            return onCommand(sender, this, label, args);
+        }
+    };
+
+    private SimulatedPlugin(SimulatedServer server, PluginDescriptionFile description, File dataFolder) {
+        super(new JavaPluginLoader(server.getProxy()), description, dataFolder,
+                new File(dataFolder.getParentFile(), description.getName() + ".jar"));
+    }
+
+    /**
+     * Loads the plugin, reading its description from the class path.
+     *
+     * @param server     the server.
+     * @param dataFolder the data folder.
+     * @return the plugin, not yet enabled.
+     * @throws IOException                 if the description could not be read.
+     * @throws InvalidDescriptionException if the description is invalid.
+     */
+    public static SimulatedPlugin load(SimulatedServer server, File dataFolder)
+            throws IOException, InvalidDescriptionException {
+        try (InputStream in = SimulatedPlugin.class.getClassLoader().getResourceAsStream("plugin.yml")) {
+            if (in == null) {
+                throw new IOException("plugin.yml is not on the class path");
+            }
+            return new SimulatedPlugin(server, new PluginDescriptionFile(in), dataFolder);
+        }
+    }
+
+    /**
+     * Enables the plugin, as the server would once every plugin is loaded.
+     */
+    public void enable() {
+        setEnabled(true);
+    }
+
+    /**
+     * Disables the plugin, as the server would on shutdown.
+     */
+    public void disable() {
+        setEnabled(false);
+    }
+
+    /**
+     * Runs an LMS command as if typed by the sender.
+     *
+     * @param sender      the sender.
+     * @param commandLine the command, without the leading {@code /lms}.
+     */
+    public void dispatch(CommandSender sender, String commandLine) {
+        command.execute(sender, command.getName(), commandLine.split(" "));
+    }
+}
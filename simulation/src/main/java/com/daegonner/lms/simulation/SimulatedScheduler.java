@@ -0,0 +1,206 @@
+package com.daegonner.lms.simulation;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A scheduler driven tick by tick by the simulation. Synchronous tasks run
+ * on the simulation thread when their tick comes around, asynchronous tasks
+ * run straight away on a thread pool.
+ */
+public class SimulatedScheduler implements InvocationHandler {
+
+    private final BukkitScheduler proxy = (BukkitScheduler) Proxy.newProxyInstance(
+            SimulatedScheduler.class.getClassLoader(), new Class<?>[]{BukkitScheduler.class}, this);
+    private final ExecutorService async = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "LMS simulation async");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Task> tasks = new ArrayList<>();
+    private final List<Task> added = new ArrayList<>();
+    private long currentTick = 0;
+    private int nextId = 1;
+
+    /**
+     * Gets the scheduler as seen by the plugin.
+     *
+     * @return the scheduler.
+     */
+    public BukkitScheduler getProxy() {
+        return proxy;
+    }
+
+    /**
+     * Gets the number of ticks ran so far.
+     *
+     * @return the current tick.
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Runs every synchronous task due this tick, in the order they were
+     * scheduled.
+     */
+    public void tick() {
+        currentTick++;
+        synchronized (this) {
+            tasks.addAll(added);
+            added.clear();
+        }
+
+        Iterator<Task> it = tasks.iterator();
+        while (it.hasNext()) {
+            Task task = it.next();
+            if (task.cancelled) {
+                it.remove();
+                continue;
+            }
+
+            if (task.nextRun > currentTick) {
+                continue;
+            }
+
+            task.runnable.run();
+            if (task.period <= 0) {
+                it.remove();
+            } else {
+                task.nextRun = currentTick + task.period;
+            }
+        }
+    }
+
+    /**
+     * Stops the asynchronous thread pool, waiting briefly for running tasks.
+     */
+    public void shutdown() {
+        async.shutdown();
+        try {
+            async.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "runTask":
+                return schedule((Plugin) args[0], (Runnable) args[1], 0, -1);
+            case "runTaskLater":
+                return schedule((Plugin) args[0], (Runnable) args[1], (long) args[2], -1);
+            case "runTaskTimer":
+                return schedule((Plugin) args[0], (Runnable) args[1], (long) args[2], (long) args[3]);
+            case "scheduleSyncDelayedTask":
+                return schedule((Plugin) args[0], (Runnable) args[1], args.length > 2 ? (long) args[2] : 0, -1)
+                        .getTaskId();
+            case "scheduleSyncRepeatingTask":
+                return schedule((Plugin) args[0], (Runnable) args[1], (long) args[2], (long) args[3]).getTaskId();
+            case "runTaskAsynchronously":
+            case "runTaskLaterAsynchronously":
+            case "runTaskTimerAsynchronously":
+                async.execute((Runnable) args[1]);
+                return task((Plugin) args[0], nextId(), false, null);
+            case "cancelTask":
+                cancel((int) args[0]);
+                return null;
+            case "cancelTasks":
+            case "cancelAllTasks":
+                cancelAll();
+                return null;
+            case "isCurrentlyRunning":
+                return false;
+            case "isQueued":
+                return isQueued((int) args[0]);
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "SimulatedScheduler";
+            default:
+                throw new UnsupportedOperationException("Not simulated: BukkitScheduler." + method.getName());
+        }
+    }
+
+    private synchronized BukkitTask schedule(Plugin plugin, Runnable runnable, long delay, long period) {
+        Task task = new Task(nextId(), runnable, currentTick + Math.max(1, delay), period);
+        added.add(task);
+        return task(plugin, task.id, true, task);
+    }
+
+    private synchronized int nextId() {
+        return nextId++;
+    }
+
+    private synchronized void cancel(int id) {
+        tasks.stream().filter(task -> task.id == id).forEach(task -> task.cancelled = true);
+        added.removeIf(task -> task.id == id);
+    }
+
+    private synchronized void cancelAll() {
+        tasks.forEach(task -> task.cancelled = true);
+        added.clear();
+    }
+
+    private synchronized boolean isQueued(int id) {
+        return tasks.stream().anyMatch(task -> task.id == id && !task.cancelled) ||
+                added.stream().anyMatch(task -> task.id == id);
+    }
+
+    private BukkitTask task(Plugin plugin, int id, boolean sync, Task task) {
+        return (BukkitTask) Proxy.newProxyInstance(SimulatedScheduler.class.getClassLoader(),
+                new Class<?>[]{BukkitTask.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getTaskId":
+                            return id;
+                        case "getOwner":
+                            return plugin;
+                        case "isSync":
+                            return sync;
+                        case "cancel":
+                            cancel(id);
+                            return null;
+                        case "isCancelled":
+                            return task != null && task.cancelled;
+                        case "hashCode":
+                            return id;
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "SimulatedTask{" + id + "}";
+                        default:
+                            throw new UnsupportedOperationException("Not simulated: BukkitTask." + method.getName());
+                    }
+                });
+    }
+
+    private static class Task {
+
+        private final int id;
+        private final Runnable runnable;
+        private final long period;
+        private long nextRun;
+        private volatile boolean cancelled;
+
+        private Task(int id, Runnable runnable, long nextRun, long period) {
+            this.id = id;
+            this.runnable = runnable;
+            this.nextRun = nextRun;
+            this.period = period;
+        }
+    }
+}
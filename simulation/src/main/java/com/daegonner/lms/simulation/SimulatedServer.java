@@ -0,0 +1,323 @@
+package com.daegonner.lms.simulation;
+
+import com.avaje.ebean.config.DataSourceConfig;
+import com.avaje.ebean.config.ServerConfig;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * A headless server for the simulation. Only the parts of the server LMS
+ * uses are simulated: worlds, online players, the scheduler and event
+ * dispatch. The database is an in-memory H2 database, configured through
+ * the same hook a real server uses for plugin databases.
+ */
+public class SimulatedServer {
+
+    private final Logger logger = Logger.getLogger("LMS simulation");
+    private final SimulatedScheduler scheduler = new SimulatedScheduler();
+    private final Map<String, World> worlds = new HashMap<>();
+    private final Map<Player, SimulatedPlayer> players = new LinkedHashMap<>();
+    private final Collection<Player> onlinePlayers = Collections.unmodifiableCollection(players.keySet());
+    private final List<Handler> handlers = new ArrayList<>();
+    private final Server proxy;
+    private boolean pluginDisabled = false;
+
+    public SimulatedServer() {
+        ConsoleCommandSender console = mock(ConsoleCommandSender.class);
+        when(console.getName()).thenReturn("CONSOLE");
+        when(console.hasPermission(anyString())).thenReturn(true);
+
+        PluginManager pluginManager = (PluginManager) Proxy.newProxyInstance(
+                SimulatedServer.class.getClassLoader(), new Class<?>[]{PluginManager.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "registerEvents":
+                            registerEvents((Listener) args[0]);
+                            return null;
+                        case "callEvent":
+                            callEvent((Event) args[0]);
+                            return null;
+                        case "disablePlugin":
+                            pluginDisabled = true;
+                            return null;
+                        case "isPluginEnabled":
+                            return args[0] instanceof Plugin && ((Plugin) args[0]).isEnabled();
+                        case "getPlugins":
+                            return new Plugin[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return Defaults.of(method.getReturnType());
+                    }
+                });
+
+        proxy = mock(Server.class);
+        when(proxy.getName()).thenReturn("LMS simulation");
+        when(proxy.getVersion()).thenReturn("1.10.2");
+        when(proxy.getBukkitVersion()).thenReturn("1.10.2-R0.1-SNAPSHOT");
+        when(proxy.getLogger()).thenReturn(logger);
+        when(proxy.isPrimaryThread()).thenReturn(true);
+        when(proxy.getScheduler()).thenReturn(scheduler.getProxy());
+        when(proxy.getPluginManager()).thenReturn(pluginManager);
+        when(proxy.getConsoleSender()).thenReturn(console);
+        when(proxy.getItemFactory()).thenReturn(itemFactory());
+        doReturn(onlinePlayers).when(proxy).getOnlinePlayers();
+        when(proxy.getWorld(anyString())).thenAnswer(invocation -> worlds.get(invocation.<String>getArgument(0)));
+        when(proxy.getWorlds()).thenAnswer(invocation -> new ArrayList<>(worlds.values()));
+        when(proxy.getPlayerExact(anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            return onlinePlayers.stream().filter(player -> player.getName().equalsIgnoreCase(name)).findFirst()
+                    .orElse(null);
+        });
+        doAnswer(invocation -> {
+            configureDatabase(invocation.getArgument(0));
+            return null;
+        }).when(proxy).configureDbConfig(any(ServerConfig.class));
+
+        Bukkit.setServer(proxy);
+    }
+
+    /**
+     * Points a plugin database at a fresh in-memory H2 database.
+     *
+     * @param config the plugin database configuration.
+     */
+    private static void configureDatabase(ServerConfig config) {
+        DataSourceConfig dataSource = new DataSourceConfig();
+        dataSource.setDriver("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:" + config.getName() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        config.setDataSourceConfig(dataSource);
+    }
+
+    /**
+     * Item meta is not needed to simulate a game, so every item shares one
+     * inert meta.
+     *
+     * @return the item factory.
+     */
+    private static ItemFactory itemFactory() {
+        ItemMeta meta = mock(ItemMeta.class);
+        when(meta.clone()).thenReturn(meta);
+
+        ItemFactory itemFactory = mock(ItemFactory.class);
+        when(itemFactory.getItemMeta(any())).thenReturn(meta);
+        when(itemFactory.isApplicable(any(ItemMeta.class), any(ItemStack.class))).thenReturn(true);
+        when(itemFactory.isApplicable(any(ItemMeta.class), any(Material.class))).thenReturn(true);
+        when(itemFactory.asMetaFor(any(ItemMeta.class), any(ItemStack.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(itemFactory.asMetaFor(any(ItemMeta.class), any(Material.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(itemFactory.equals(any(ItemMeta.class), any(ItemMeta.class))).thenReturn(true);
+        return itemFactory;
+    }
+
+    /**
+     * Gets the server as seen by the plugin.
+     *
+     * @return the server.
+     */
+    public Server getProxy() {
+        return proxy;
+    }
+
+    /**
+     * Gets the scheduler driving every tick.
+     *
+     * @return the scheduler.
+     */
+    public SimulatedScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Checks if the plugin asked to be disabled, such as when it fails to
+     * load its configuration.
+     *
+     * @return {@code true} if the plugin was disabled.
+     */
+    public boolean isPluginDisabled() {
+        return pluginDisabled;
+    }
+
+    /**
+     * Creates a world which only knows its name. Chunks are never loaded.
+     *
+     * @param name the world name.
+     * @return the world.
+     */
+    public World createWorld(String name) {
+        World world = (World) Proxy.newProxyInstance(SimulatedServer.class.getClassLoader(),
+                new Class<?>[]{World.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return name;
+                        case "getUID":
+                            return UUID.nameUUIDFromBytes(name.getBytes());
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "SimulatedWorld{" + name + "}";
+                        default:
+                            return Defaults.of(method.getReturnType());
+                    }
+                });
+        worlds.put(name, world);
+        return world;
+    }
+
+    /**
+     * Gets every online player.
+     *
+     * @return the players.
+     */
+    public Collection<SimulatedPlayer> getPlayers() {
+        return players.values();
+    }
+
+    /**
+     * Gets the simulated player behind a player.
+     *
+     * @param player the player.
+     * @return the simulated player, or {@code null} if not online.
+     */
+    public SimulatedPlayer getPlayer(Player player) {
+        return players.get(player);
+    }
+
+    /**
+     * Connects a new player.
+     *
+     * @param name     the player name.
+     * @param location where the player joins.
+     * @return the player.
+     */
+    public SimulatedPlayer join(String name, Location location) {
+        SimulatedPlayer player = new SimulatedPlayer(this, name, location);
+        players.put(player.getProxy(), player);
+        callEvent(new PlayerJoinEvent(player.getProxy(), null));
+        return player;
+    }
+
+    /**
+     * Disconnects a player.
+     *
+     * @param player the player.
+     */
+    public void quit(SimulatedPlayer player) {
+        callEvent(new PlayerQuitEvent(player.getProxy(), null));
+        players.remove(player.getProxy());
+        player.setOnline(false);
+    }
+
+    /**
+     * Moves a player, firing a {@link PlayerMoveEvent}.
+     *
+     * @param player the player.
+     * @param to     where the player moves to.
+     */
+    public void move(SimulatedPlayer player, Location to) {
+        PlayerMoveEvent event = new PlayerMoveEvent(player.getProxy(), player.getLocation().clone(), to.clone());
+        callEvent(event);
+        if (!event.isCancelled()) {
+            player.setLocation(event.getTo());
+        }
+    }
+
+    /**
+     * Kills a player, firing a {@link PlayerDeathEvent}.
+     *
+     * @param player the player.
+     */
+    public void kill(SimulatedPlayer player) {
+        callEvent(new PlayerDeathEvent(player.getProxy(), new ArrayList<>(), 0, null));
+    }
+
+    /**
+     * Calls every registered handler accepting an event, in priority order.
+     *
+     * @param event the event.
+     */
+    public void callEvent(Event event) {
+        for (Handler handler : handlers) {
+            if (!handler.type.isInstance(event)) {
+                continue;
+            }
+
+            if (handler.ignoreCancelled && event instanceof Cancellable && ((Cancellable) event).isCancelled()) {
+                continue;
+            }
+
+            try {
+                handler.method.invoke(handler.listener, event);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("Failed to pass " + event.getEventName() + " to " +
+                        handler.listener.getClass().getSimpleName(), e.getCause());
+            }
+        }
+    }
+
+    private void registerEvents(Listener listener) {
+        for (Method method : listener.getClass().getMethods()) {
+            EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation == null || method.getParameterCount() != 1 ||
+                    !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                continue;
+            }
+
+            handlers.add(new Handler(listener, method, annotation));
+        }
+        handlers.sort(Comparator.comparingInt(handler -> handler.priority));
+    }
+
+    private static class Handler {
+
+        private final Listener listener;
+        private final Method method;
+        private final Class<?> type;
+        private final int priority;
+        private final boolean ignoreCancelled;
+
+        private Handler(Listener listener, Method method, EventHandler annotation) {
+            this.listener = listener;
+            this.method = method;
+            this.type = method.getParameterTypes()[0];
+            this.priority = annotation.priority().getSlot();
+            this.ignoreCancelled = annotation.ignoreCancelled();
+        }
+    }
+}
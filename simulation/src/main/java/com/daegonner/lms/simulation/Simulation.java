@@ -0,0 +1,328 @@
+package com.daegonner.lms.simulation;
+
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.ArenaSpawn;
+import com.daegonner.lms.entity.BlockPos;
+import com.daegonner.lms.entity.Game;
+import com.daegonner.lms.entity.Region;
+import com.daegonner.lms.metrics.LatencyHistogram;
+import com.daegonner.lms.metrics.Metrics;
+import com.daegonner.lms.task.GameTask;
+import com.daegonner.lms.task.MetricsTask;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a full LMS event against a simulated server: players connect, join
+ * the lobby and vote, then fight it out while moving around the arena until
+ * a winner is found. Reports how long each server tick took and how much
+ * heap was used, to plan how large an event a server can host. Ticks run
+ * in real time, as lobby countdowns follow the wall clock.
+ * <p>
+ * Usage: {@code java -jar simulation.jar [--players 300] [--arenas 4]
+ * [--countdown 10] [--game-seconds 60] [--seed 1]}
+ */
+public class Simulation {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final int ARENA_SIZE = 200;
+    private static final int ARENA_SPACING = 300;
+    private static final int SPAWNS_PER_ARENA = 16;
+    private static final double MOVE_FRACTION = 0.5;
+    private static final double ESCAPE_CHANCE = 0.0005;
+
+    private final Options options;
+    private final Random random;
+    private final SimulatedServer server = new SimulatedServer();
+    private final Map<Phase, LatencyHistogram> tickCosts = new EnumMap<>(Phase.class);
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<Arena> arenas = new ArrayList<>();
+    private SimulatedPlugin plugin;
+    private Iterator<SimulatedPlayer> joining;
+    private double pendingKills = 0;
+    private long ticksOverBudget = 0;
+    private long baselineHeap;
+    private long peakHeap;
+
+    private Simulation(Options options) {
+        this.options = options;
+        this.random = new Random(options.seed);
+        for (Phase phase : Phase.values()) {
+            tickCosts.put(phase, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Simulation simulation = new Simulation(Options.parse(args));
+        try {
+            simulation.setup();
+            simulation.run();
+            simulation.report();
+        } finally {
+            simulation.shutdown();
+        }
+        System.exit(0);
+    }
+
+    private void setup() throws Exception {
+        File dataFolder = new File(Files.createTempDirectory("lms-simulation").toFile(), "LastManStanding");
+        writeConfig(dataFolder);
+
+        World hub = server.createWorld("world");
+        World arenaWorld = server.createWorld("arena");
+
+        plugin = SimulatedPlugin.load(server, dataFolder);
+        plugin.enable();
+        if (server.isPluginDisabled()) {
+            throw new IllegalStateException("LMS disabled itself while enabling, see the log above");
+        }
+
+        for (int i = 0; i < options.arenas; i++) {
+            int minX = i * ARENA_SPACING;
+            Region region = Region.create(new BlockPos(arenaWorld, minX, 0, 0),
+                    new BlockPos(arenaWorld, minX + ARENA_SIZE, 255, ARENA_SIZE));
+            Arena arena = new Arena("arena" + (i + 1), region);
+            for (int j = 0; j < SPAWNS_PER_ARENA; j++) {
+                arena.getSpawns().add(new ArenaSpawn(arenaWorld, minX + 10 + random.nextInt(ARENA_SIZE - 20) + 0.5,
+                        64, 10 + random.nextInt(ARENA_SIZE - 20) + 0.5, random.nextFloat() * 360, 0));
+            }
+            plugin.getArenaManager().addArena(arena);
+            arenas.add(arena);
+        }
+
+        List<SimulatedPlayer> players = new ArrayList<>(options.players);
+        for (int i = 0; i < options.players; i++) {
+            players.add(server.join("Player" + i, new Location(hub, random.nextInt(64), 64, random.nextInt(64))));
+        }
+        joining = players.iterator();
+
+        System.gc();
+        baselineHeap = memory.getHeapMemoryUsage().getUsed();
+        peakHeap = baselineHeap;
+    }
+
+    private void writeConfig(File dataFolder) throws IOException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("settings.lobby-start", 10800);
+        config.set("settings.lobby-countdown", options.countdown);
+        config.set("settings.metrics.enabled", true);
+        config.set("settings.metrics.dump-interval", 0);
+        config.set("arena-settings.default.min-players", 2);
+        dataFolder.mkdirs();
+        config.save(new File(dataFolder, "config.yml"));
+    }
+
+    private void run() throws InterruptedException {
+        GameTask gameTask = plugin.getGameTask();
+        boolean gameStarted = false;
+        long maxTicks = TimeUnit.SECONDS.toMillis(options.countdown + options.gameSeconds * 4L + 60) / 50;
+
+        for (long tick = 0; tick < maxTicks; tick++) {
+            long tickStart = System.nanoTime();
+
+            // Choose what happens this tick before timing it, so only the work
+            // done by LMS is measured.
+            Phase phase = getPhase(gameTask);
+            List<Runnable> actions = planActions(phase, gameTask);
+
+            long start = System.nanoTime();
+            actions.forEach(Runnable::run);
+            server.getScheduler().tick();
+            long elapsed = System.nanoTime() - start;
+
+            tickCosts.get(phase).record(TimeUnit.NANOSECONDS.toMicros(elapsed));
+            if (elapsed > TICK_NANOS) {
+                ticksOverBudget++;
+            }
+            peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+
+            gameStarted |= !gameTask.getGames().isEmpty();
+            if (gameStarted && !gameTask.hasGame() && !gameTask.hasLobby()) {
+                return;
+            }
+
+            long sleep = tickStart + TICK_NANOS - System.nanoTime();
+            if (sleep > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleep);
+            }
+        }
+
+        System.out.println("Stopped after " + maxTicks + " ticks without the game finishing");
+    }
+
+    private Phase getPhase(GameTask gameTask) {
+        for (Game game : gameTask.getGames()) {
+            if (game.isStarting()) {
+                return Phase.STARTING;
+            }
+        }
+
+        if (gameTask.hasGame()) {
+            return Phase.GAME;
+        }
+
+        return gameTask.hasLobby() ? Phase.LOBBY : Phase.IDLE;
+    }
+
+    private List<Runnable> planActions(Phase phase, GameTask gameTask) {
+        List<Runnable> actions = new ArrayList<>();
+        if (phase == Phase.LOBBY) {
+            // Everyone joins over the first second of the lobby, half voting.
+            int joins = Math.max(1, options.players / 20);
+            while (joins-- > 0 && joining.hasNext()) {
+                SimulatedPlayer player = joining.next();
+                actions.add(() -> plugin.dispatch(player.getProxy(), "join"));
+                if (random.nextBoolean()) {
+                    String arena = arenas.get(random.nextInt(arenas.size())).getName();
+                    actions.add(() -> plugin.dispatch(player.getProxy(), "vote " + arena));
+                }
+            }
+        }
+
+        if (phase != Phase.GAME) {
+            return actions;
+        }
+
+        Optional<Game> game = gameTask.getDefaultGame();
+        if (!game.isPresent()) {
+            return actions;
+        }
+
+        List<Player> participants = new ArrayList<>(game.get().getParticipants());
+        Region region = game.get().getArena().getRegion();
+        for (Player participant : participants) {
+            if (random.nextDouble() >= MOVE_FRACTION) {
+                continue;
+            }
+
+            SimulatedPlayer player = server.getPlayer(participant);
+            Location to = player.getLocation().clone();
+            if (random.nextDouble() < ESCAPE_CHANCE) {
+                to.add(ARENA_SPACING, 0, 0);
+            } else {
+                to.add(random.nextDouble() - 0.5, 0, random.nextDouble() - 0.5);
+                clamp(to, region);
+            }
+            actions.add(() -> server.move(player, to));
+        }
+
+        // Kill players off at a steady rate, so the game lasts roughly as
+        // long as asked.
+        pendingKills += (double) options.players / (options.gameSeconds * 20);
+        while (pendingKills >= 1 && !participants.isEmpty()) {
+            pendingKills--;
+            SimulatedPlayer victim = server.getPlayer(participants.remove(random.nextInt(participants.size())));
+            actions.add(() -> server.kill(victim));
+        }
+        return actions;
+    }
+
+    private static void clamp(Location location, Region region) {
+        location.setX(Math.max(region.getMin().getX() + 1, Math.min(region.getMax().getX() - 1, location.getX())));
+        location.setZ(Math.max(region.getMin().getZ() + 1, Math.min(region.getMax().getZ() - 1, location.getZ())));
+    }
+
+    private void report() {
+        System.out.println();
+        System.out.println("LMS simulation: " + options.players + " players, " + options.arenas + " arenas, " +
+                server.getScheduler().getCurrentTick() + " ticks");
+        System.out.println();
+        System.out.println(String.format("%-10s %8s %10s %8s %8s %8s %8s", "phase", "ticks", "mean", "p50", "p90",
+                "p99", "max"));
+        tickCosts.forEach((phase, histogram) -> {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            if (snapshot.getCount() > 0) {
+                System.out.println(String.format("%-10s %8d %8.1fus %6dus %6dus %6dus %6dus",
+                        phase.name().toLowerCase(), snapshot.getCount(), snapshot.getMean(),
+                        snapshot.getPercentile(50), snapshot.getPercentile(90), snapshot.getPercentile(99),
+                        snapshot.getMax()));
+            }
+        });
+        System.out.println();
+        System.out.println("Ticks over the 50ms budget: " + ticksOverBudget);
+        System.out.println("Peak heap: " + toMegabytes(peakHeap) + "MB (" + toMegabytes(peakHeap - baselineHeap) +
+                "MB above the " + toMegabytes(baselineHeap) + "MB baseline)");
+
+        long messages = 0;
+        long packets = 0;
+        for (SimulatedPlayer player : server.getPlayers()) {
+            messages += player.getMessagesReceived();
+            packets += player.getPacketsReceived();
+        }
+        System.out.println("Chat: " + messages + " messages in " + packets + " packets");
+
+        System.out.println();
+        System.out.println("LMS timers:");
+        for (Map.Entry<Metrics.Timer, LatencyHistogram.Snapshot> entry : plugin.getMetrics().snapshot().entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                System.out.println("  " + MetricsTask.format(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    private static long toMegabytes(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+
+    private void shutdown() {
+        if (plugin != null && plugin.isEnabled()) {
+            plugin.disable();
+        }
+        server.getScheduler().shutdown();
+    }
+
+    /**
+     * What the server is doing during a tick.
+     */
+    private enum Phase {
+        IDLE,
+        LOBBY,
+        STARTING,
+        GAME
+    }
+
+    private static class Options {
+
+        private int players = 300;
+        private int arenas = 4;
+        private int countdown = 10;
+        private int gameSeconds = 60;
+        private long seed = 1;
+
+        private static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--players":
+                        options.players = Math.max(2, Integer.parseInt(args[++i]));
+                        break;
+                    case "--arenas":
+                        options.arenas = Math.max(1, Integer.parseInt(args[++i]));
+                        break;
+                    case "--countdown":
+                        options.countdown = Math.max(0, Integer.parseInt(args[++i]));
+                        break;
+                    case "--game-seconds":
+                        options.gameSeconds = Math.max(1, Integer.parseInt(args[++i]));
+                        break;
+                    case "--seed":
+                        options.seed = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            return options;
+        }
+    }
+}
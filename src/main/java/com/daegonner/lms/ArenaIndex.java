@@ -0,0 +1,156 @@
+package com.daegonner.lms;
+
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.BlockPos;
+import com.daegonner.lms.entity.Region;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.*;
+
+/**
+ * A per-world spatial index of {@link Arena} regions, bucketed into a grid
+ * of chunk sized cells. Location lookups only test the arenas overlapping
+ * the cell the location is in, regardless of how many arenas are loaded.
+ */
+public class ArenaIndex {
+
+    private static final int CELL_SHIFT = 4;
+
+    private final Map<World, Map<Long, List<Arena>>> worlds = new HashMap<>();
+    private final Map<Arena, IndexedBounds> indexed = new IdentityHashMap<>();
+
+    /**
+     * Adds an arena to the index using its current region.
+     *
+     * @param arena the arena to add.
+     */
+    public void add(Arena arena) {
+        if (indexed.containsKey(arena)) {
+            return;
+        }
+
+        IndexedBounds bounds = IndexedBounds.of(arena.getRegion());
+        Map<Long, List<Arena>> cells = worlds.computeIfAbsent(bounds.world, w -> new HashMap<>());
+        for (int x = bounds.minCellX; x <= bounds.maxCellX; x++) {
+            for (int z = bounds.minCellZ; z <= bounds.maxCellZ; z++) {
+                cells.computeIfAbsent(key(x, z), k -> new ArrayList<>(1)).add(arena);
+            }
+        }
+        indexed.put(arena, bounds);
+    }
+
+    /**
+     * Removes an arena from the index, using the bounds it was indexed with.
+     *
+     * @param arena the arena to remove.
+     */
+    public void remove(Arena arena) {
+        IndexedBounds bounds = indexed.remove(arena);
+        if (bounds == null) {
+            return;
+        }
+
+        Map<Long, List<Arena>> cells = worlds.get(bounds.world);
+        if (cells == null) {
+            return;
+        }
+
+        for (int x = bounds.minCellX; x <= bounds.maxCellX; x++) {
+            for (int z = bounds.minCellZ; z <= bounds.maxCellZ; z++) {
+                long key = key(x, z);
+                List<Arena> cell = cells.get(key);
+                if (cell != null && cell.remove(arena) && cell.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+
+        if (cells.isEmpty()) {
+            worlds.remove(bounds.world);
+        }
+    }
+
+    /**
+     * Re-indexes an arena after its region has been changed.
+     *
+     * @param arena the arena to update.
+     */
+    public void update(Arena arena) {
+        remove(arena);
+        add(arena);
+    }
+
+    /**
+     * Removes every arena from the index.
+     */
+    public void clear() {
+        worlds.clear();
+        indexed.clear();
+    }
+
+    /**
+     * Finds the arena a location is inside.
+     *
+     * @param location the location to check.
+     * @return the arena containing the location.
+     */
+    public Optional<Arena> find(Location location) {
+        Map<Long, List<Arena>> cells = worlds.get(location.getWorld());
+        if (cells == null) {
+            return Optional.empty();
+        }
+
+        List<Arena> cell = cells.get(key(location.getBlockX() >> CELL_SHIFT, location.getBlockZ() >> CELL_SHIFT));
+        if (cell == null) {
+            return Optional.empty();
+        }
+
+        for (Arena arena : cell) {
+            if (arena.getRegion().isInside(location)) {
+                return Optional.of(arena);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Packs two cell coordinates into a single key.
+     *
+     * @param x the cell X coordinate.
+     * @param z the cell Z coordinate.
+     * @return the cell key.
+     */
+    private static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The cells an arena occupied when it was indexed.
+     */
+    private static class IndexedBounds {
+
+        private final World world;
+        private final int minCellX;
+        private final int minCellZ;
+        private final int maxCellX;
+        private final int maxCellZ;
+
+        private IndexedBounds(World world, int minCellX, int minCellZ, int maxCellX, int maxCellZ) {
+            this.world = world;
+            this.minCellX = minCellX;
+            this.minCellZ = minCellZ;
+            this.maxCellX = maxCellX;
+            this.maxCellZ = maxCellZ;
+        }
+
+        private static IndexedBounds of(Region region) {
+            BlockPos min = region.getMin();
+            BlockPos max = region.getMax();
+            return new IndexedBounds(min.getWorld(),
+                    min.getX() >> CELL_SHIFT, min.getZ() >> CELL_SHIFT,
+                    max.getX() >> CELL_SHIFT, max.getZ() >> CELL_SHIFT);
+        }
+    }
+}
@@ -1,24 +1,43 @@
 package com.daegonner.lms;
 
 import com.daegonner.lms.entity.Arena;
-import com.daegonner.lms.entity.ArenaSpawn;
 import com.daegonner.lms.entity.BlockPos;
 import com.daegonner.lms.entity.Region;
-import com.daegonner.lms.model.*;
+import com.daegonner.lms.settings.ArenaSettings;
+import com.daegonner.lms.settings.Settings;
+import org.bukkit.Location;
 import org.bukkit.World;
 
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 /**
  * Manages all interactions with any LMS {@link Arena}.
  */
 public class ArenaManager {
 
+    private static final int REJECTION_ATTEMPTS = 8;
+
     private final LastManStandingPlugin plugin;
     private final Map<String, Arena> arenas = new HashMap<>();
+    private final List<Arena> arenaList = new ArrayList<>();
+    private final Map<Arena, Integer> arenaPositions = new IdentityHashMap<>();
+    private final Map<Integer, Arena> arenasById = new HashMap<>();
+    private final ArenaIndex arenaIndex = new ArenaIndex();
+    private final Map<String, List<ArenaRecord>> pendingArenas = new HashMap<>();
+    private final Map<String, ArenaRecord> pendingNames = new HashMap<>();
+    private final Map<Integer, Arena> spawnCache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, List<Runnable>> spawnLoads = new HashMap<>();
+    private final List<Arena> weightedArenas = new ArrayList<>();
+    private int[] weightedMinPlayers = new int[0];
+    private double[] cumulativeWeights = new double[1];
+    private Settings weightedSettings;
+    private boolean weightsChanged = true;
     private boolean initialized = false;
+    private boolean ready = false;
+    private boolean lazy = false;
 
     public ArenaManager(LastManStandingPlugin plugin) {
         this.plugin = plugin;
@@ -29,31 +48,427 @@ public class ArenaManager {
     }
 
     public Map<String, Arena> getArenas() {
-        return arenas;
+        return Collections.unmodifiableMap(arenas);
+    }
+
+    /**
+     * Checks if an arena name is taken, either by a loaded arena or by one
+     * waiting for its world to load.
+     *
+     * @param name the arena name.
+     * @return {@code true} if the name is taken.
+     */
+    public boolean hasArena(String name) {
+        return arenas.containsKey(name.toLowerCase()) || pendingNames.containsKey(name.toLowerCase());
+    }
+
+    /**
+     * Gets every arena waiting for a world to load before it can be used.
+     *
+     * @return the pending arenas.
+     */
+    public Collection<ArenaRecord> getPendingArenas() {
+        return Collections.unmodifiableCollection(pendingNames.values());
+    }
+
+    /**
+     * Checks if an arena is currently loaded.
+     *
+     * @param arena the arena.
+     * @return {@code true} if the arena is loaded.
+     */
+    public boolean isLoaded(Arena arena) {
+        return arenaPositions.containsKey(arena);
+    }
+
+    /**
+     * Adds an arena, making it available by name and location.
+     *
+     * @param arena the arena to add.
+     */
+    public void addArena(Arena arena) {
+        Arena previous = arenas.put(arena.getName().toLowerCase(), arena);
+        if (previous != null) {
+            removeFromList(previous);
+            arenasById.remove(previous.getId());
+            arenaIndex.remove(previous);
+            spawnCache.remove(previous.getId());
+        }
+
+        if (arena.getId() != 0) {
+            arenasById.put(arena.getId(), arena);
+        }
+
+        arenaPositions.put(arena, arenaList.size());
+        arenaList.add(arena);
+        arenaIndex.add(arena);
+        weightsChanged = true;
+    }
+
+    /**
+     * Removes an arena.
+     *
+     * @param arena the arena to remove.
+     */
+    public void removeArena(Arena arena) {
+        arenas.remove(arena.getName().toLowerCase());
+        removeFromList(arena);
+        arenasById.remove(arena.getId());
+        arenaIndex.remove(arena);
+        spawnCache.remove(arena.getId());
+    }
+
+    /**
+     * Records the id an arena has been stored under.
+     *
+     * @param arena the arena.
+     * @param id    the id.
+     */
+    public void setId(Arena arena, int id) {
+        arenasById.remove(arena.getId());
+        arena.setId(id);
+        if (isLoaded(arena)) {
+            arenasById.put(id, arena);
+        }
+        weightsChanged = true;
+    }
+
+    /**
+     * Records the name an arena has been stored under.
+     *
+     * @param arena the arena.
+     * @param name  the name.
+     */
+    public void setName(Arena arena, String name) {
+        arena.setName(name);
+        weightsChanged = true;
     }
 
     /**
-     * Gets a random loaded arena.
+     * Gets an arena by the id it is stored under.
+     *
+     * @param id the id.
+     * @return the arena.
+     */
+    public Optional<Arena> getArena(int id) {
+        return Optional.ofNullable(arenasById.get(id));
+    }
+
+    /**
+     * Checks if any loaded arena has been stored, and so may host a game.
+     *
+     * @return {@code true} if a stored arena is loaded.
+     */
+    public boolean hasStoredArena() {
+        return !arenasById.isEmpty();
+    }
+
+    /**
+     * Moves an arena to a new name.
+     *
+     * @param arena the arena to rename.
+     * @param name  the new name.
+     */
+    public void renameArena(Arena arena, String name) {
+        arenas.remove(arena.getName().toLowerCase());
+        arenas.put(name.toLowerCase(), arena);
+    }
+
+    /**
+     * Moves an arena back to its current name after it failed to be renamed.
+     *
+     * @param arena the arena.
+     * @param name  the name it was being renamed to.
+     */
+    public void cancelRename(Arena arena, String name) {
+        arenas.remove(name.toLowerCase(), arena);
+        arenas.put(arena.getName().toLowerCase(), arena);
+    }
+
+    /**
+     * Removes an arena from the pick list by swapping the last arena into
+     * its slot.
+     *
+     * @param arena the arena to remove.
+     */
+    private void removeFromList(Arena arena) {
+        Integer position = arenaPositions.remove(arena);
+        if (position == null) {
+            return;
+        }
+
+        Arena last = arenaList.remove(arenaList.size() - 1);
+        if (last != arena) {
+            arenaList.set(position, last);
+            arenaPositions.put(last, position);
+        }
+        weightsChanged = true;
+    }
+
+    /**
+     * Updates the region of an arena, keeping the location index in sync.
+     *
+     * @param arena the arena to update.
+     * @param pos1  the first {@link BlockPos}.
+     * @param pos2  the second {@link BlockPos}.
+     */
+    public void setRegion(Arena arena, BlockPos pos1, BlockPos pos2) {
+        arena.getRegion().setPoints(pos1, pos2);
+        arenaIndex.update(arena);
+    }
+
+    /**
+     * Finds the arena a location is inside.
+     *
+     * @param location the location.
+     * @return the arena containing the location.
+     */
+    public Optional<Arena> findArenaAt(Location location) {
+        return arenaIndex.find(location);
+    }
+
+    /**
+     * Gets a random loaded arena, each equally likely.
      *
      * @return the arena.
      */
     public Optional<Arena> getRandomArena() {
+        if (arenaList.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(arenaList.get(ThreadLocalRandom.current().nextInt(arenaList.size())));
+    }
+
+    /**
+     * Gets a random loaded arena, excluding any arenas given, each equally
+     * likely.
+     *
+     * @param excluded the arenas which may not be picked.
+     * @return the arena.
+     */
+    public Optional<Arena> getRandomArena(Set<Arena> excluded) {
+        if (excluded.isEmpty() || arenaList.isEmpty()) {
+            return getRandomArena();
+        }
+
+        return pickEvenly(arenaList, excluded);
+    }
+
+    /**
+     * Picks an arena from those given, excluding any arenas given, each
+     * equally likely.
+     *
+     * @param arenas   the arenas to pick from.
+     * @param excluded the arenas which may not be picked.
+     * @return the arena.
+     */
+    private static Optional<Arena> pickEvenly(List<Arena> arenas, Set<Arena> excluded) {
         if (arenas.isEmpty()) {
             return Optional.empty();
         }
 
-        int rand = ThreadLocalRandom.current().nextInt(arenas.values().size());
-        for (Arena arena : arenas.values()) {
-            if (--rand <= 0) {
+        // Few arenas are ever excluded, so retrying random picks is usually
+        // enough before falling back to collecting every candidate.
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < REJECTION_ATTEMPTS; i++) {
+            Arena arena = arenas.get(random.nextInt(arenas.size()));
+            if (!excluded.contains(arena)) {
                 return Optional.of(arena);
             }
         }
 
-        return Optional.empty();
+        List<Arena> candidates = new ArrayList<>(arenas.size());
+        for (Arena arena : arenas) {
+            if (!excluded.contains(arena)) {
+                candidates.add(arena);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(candidates.get(random.nextInt(candidates.size())));
+    }
+
+    /**
+     * Gets a random loaded arena, excluding any arenas given, with each
+     * arena picked in proportion to its configured weight. Arenas requiring
+     * more players than given are only picked when no other arena may be,
+     * so a lobby too small for every arena still gets one to close against.
+     * If none of the arenas which may be picked has any weight, each of them
+     * is equally likely. Arenas not yet stored are never picked, as rewards
+     * are signed with the arena id.
+     *
+     * @param excluded the arenas which may not be picked.
+     * @param players  the number of players who will play.
+     * @return the arena.
+     */
+    public Optional<Arena> getWeightedArena(Set<Arena> excluded, int players) {
+        Settings settings = plugin.getSettings();
+        if (weightsChanged || settings != weightedSettings) {
+            rebuildWeights(settings);
+        }
+
+        // Arenas are ordered by their minimum players, so those which may be
+        // played with this many players are always the start of the table.
+        int eligible = countEligible(players);
+        double total = cumulativeWeights[eligible];
+        if (total > 0) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < REJECTION_ATTEMPTS; i++) {
+                Arena arena = weightedArenas.get(findWeighted(random.nextDouble(total), eligible));
+                if (!excluded.contains(arena)) {
+                    return Optional.of(arena);
+                }
+            }
+
+            Optional<Arena> arena = pickWeighted(eligible, excluded);
+            if (arena.isPresent()) {
+                return arena;
+            }
+        }
+
+        Optional<Arena> arena = pickEvenly(weightedArenas.subList(0, eligible), excluded);
+        return arena.isPresent() ? arena : pickEvenly(weightedArenas, excluded);
+    }
+
+    /**
+     * Rebuilds the table of arenas ordered by their minimum players, along
+     * with their cumulative weights, from the settings given.
+     *
+     * @param settings the settings.
+     */
+    private void rebuildWeights(Settings settings) {
+        weightedArenas.clear();
+        for (Arena arena : arenaList) {
+            if (arena.getId() != 0) {
+                weightedArenas.add(arena);
+            }
+        }
+        weightedArenas.sort(Comparator.comparingInt(arena ->
+                settings.getArenaSettings(arena.getName()).getMinPlayers()));
+
+        weightedMinPlayers = new int[weightedArenas.size()];
+        cumulativeWeights = new double[weightedArenas.size() + 1];
+        for (int i = 0; i < weightedArenas.size(); i++) {
+            ArenaSettings arenaSettings = settings.getArenaSettings(weightedArenas.get(i).getName());
+            weightedMinPlayers[i] = arenaSettings.getMinPlayers();
+            cumulativeWeights[i + 1] = cumulativeWeights[i] + Math.max(0, arenaSettings.getWeight());
+        }
+
+        weightedSettings = settings;
+        weightsChanged = false;
+    }
+
+    /**
+     * Counts the arenas in the weight table which may be played with the
+     * number of players given.
+     *
+     * @param players the number of players.
+     * @return the number of arenas at the start of the table which may be played.
+     */
+    private int countEligible(int players) {
+        int low = 0;
+        int high = weightedMinPlayers.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (weightedMinPlayers[mid] <= players) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the arena in the weight table whose share of the cumulative
+     * weight contains the target given.
+     *
+     * @param target   the target, at least {@code 0} and below the total
+     *                 weight of the eligible arenas.
+     * @param eligible the number of arenas at the start of the table which may be picked.
+     * @return the position of the arena in the table.
+     */
+    private int findWeighted(double target, int eligible) {
+        int low = 0;
+        int high = eligible - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid + 1] > target) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
     }
 
     /**
-     * Initializes the state of this arena manager.
+     * Picks an arena from the start of the weight table in proportion to
+     * its weight, skipping every excluded arena.
+     *
+     * @param eligible the number of arenas at the start of the table which may be picked.
+     * @param excluded the arenas which may not be picked.
+     * @return the arena, or empty if no arena which may be picked has any weight.
+     */
+    private Optional<Arena> pickWeighted(int eligible, Set<Arena> excluded) {
+        double total = 0;
+        for (int i = 0; i < eligible; i++) {
+            if (!excluded.contains(weightedArenas.get(i))) {
+                total += getWeight(i);
+            }
+        }
+
+        if (total <= 0) {
+            return Optional.empty();
+        }
+
+        double target = ThreadLocalRandom.current().nextDouble(total);
+        Arena picked = null;
+        for (int i = 0; i < eligible; i++) {
+            double weight = getWeight(i);
+            Arena arena = weightedArenas.get(i);
+            if (weight <= 0 || excluded.contains(arena)) {
+                continue;
+            }
+
+            picked = arena;
+            target -= weight;
+            if (target < 0) {
+                break;
+            }
+        }
+
+        return Optional.ofNullable(picked);
+    }
+
+    /**
+     * Gets the weight of an arena in the weight table.
+     *
+     * @param position the position of the arena in the table.
+     * @return the weight.
+     */
+    private double getWeight(int position) {
+        return cumulativeWeights[position + 1] - cumulativeWeights[position];
+    }
+
+    /**
+     * Checks if every stored arena has been loaded. Until then, the arenas
+     * known are incomplete.
+     *
+     * @return {@code true} if loading has finished.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Initializes the state of this arena manager. Arenas are fetched and
+     * decoded off the server thread, then bound to their worlds on the
+     * server thread, after which the manager is ready.
      *
      * @throws IllegalStateException when the manager has already been initialized.
      */
@@ -64,125 +479,231 @@ public class ArenaManager {
 
         // Clear all current arenas.
         arenas.clear();
-
-        // Fetch all arena models from the database.
-        List<ArenaModel> fetched = plugin.getDatabase().find(ArenaModel.class)
-                .fetch("region")
-                .fetch("region.max")
-                .fetch("region.min")
-                .fetch("region.max.world")
-                .fetch("region.min.world")
-                .fetch("spawns.entityPos")
-                .fetch("spawns.entityPos.world")
-                .findList();
-
-        // Parse all arena models and add to the arena map.
-        for (ArenaModel model : fetched) {
-            Arena arena = parseArena(model);
-            if (arena != null) {
-                arenas.put(arena.getName().toLowerCase(), arena);
-            }
-        }
+        arenaList.clear();
+        arenaPositions.clear();
+        arenasById.clear();
+        arenaIndex.clear();
+        pendingArenas.clear();
+        pendingNames.clear();
+        spawnCache.clear();
+        spawnLoads.clear();
+        weightsChanged = true;
 
         // Change the state.
         initialized = true;
+        lazy = plugin.getSettings().isLazyArenas();
+
+        long start = System.nanoTime();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<ArenaRecord> records;
+            try {
+                records = plugin.getStorage().loadArenas(!lazy);
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to load arenas from the database", e);
+                records = Collections.emptyList();
+            }
+
+            List<ArenaRecord> fetched = records;
+            long decoded = System.nanoTime();
+            if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> bind(fetched, start, decoded));
+            }
+        });
     }
 
     /**
-     * Parses an arena model into a usable arena.
+     * Loads the spawns of an arena if they are not yet loaded, keeping at
+     * most the configured number of lazily loaded arenas in memory. Spawns
+     * are read through the persistence service, so any spawns still being
+     * saved are read back.
      *
-     * @param model the {@link ArenaModel}.
-     * @return the newly parsed {@link Arena} or {@code null} if invalid.
+     * @param arena    the arena.
+     * @param callback ran on the server thread once the spawns are loaded,
+     *                 may be {@code null}.
      */
-    private Arena parseArena(ArenaModel model) {
-        // Parse the region.
-        Region region = parseRegion(model.getRegion());
+    public void loadSpawns(Arena arena, Runnable callback) {
+        if (arena.isSpawnsLoaded()) {
+            // Mark the arena as recently used.
+            spawnCache.get(arena.getId());
+            if (callback != null) {
+                callback.run();
+            }
+            return;
+        }
 
-        // Do not parse any more if the region parsed is invalid.
-        if (region == null) {
-            return null;
+        List<Runnable> callbacks = spawnLoads.get(arena.getId());
+        if (callbacks != null) {
+            if (callback != null) {
+                callbacks.add(callback);
+            }
+            return;
         }
 
-        // Create the arena.
-        Arena arena = new Arena(model.getName(), region);
+        callbacks = new ArrayList<>();
+        if (callback != null) {
+            callbacks.add(callback);
+        }
+        spawnLoads.put(arena.getId(), callbacks);
 
-        // Parse and add all spawns used by this arena.
-        arena.getSpawns().addAll(model.getSpawns().stream()
-                .map(this::parseArenaSpawn)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList()));
+        int id = arena.getId();
+        plugin.getPersistenceService().execute(() -> {
+            try {
+                return plugin.getStorage().loadArena(id);
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to load the spawns of arena " + id, e);
+                return null;
+            }
+        }, record -> {
+            List<Runnable> loaded = spawnLoads.remove(id);
+            if (loaded == null || !isLoaded(arena)) {
+                return;
+            }
 
-        // Return the newly parsed arena.
-        return arena;
+            // Without a record the arena is left with no spawns until next
+            // evicted, rather than retrying the database on every use.
+            if (record != null) {
+                record.bindSpawns(arena, plugin.getServer()::getWorld);
+            } else {
+                arena.setSpawnsLoaded(true);
+            }
+            cacheSpawns(arena);
+            loaded.forEach(Runnable::run);
+        });
     }
 
     /**
-     * Parses a region model into a usable region.
+     * Records that an arena has its spawns loaded, unloading the spawns of
+     * the least recently used arenas not in use while over capacity.
      *
-     * @param model the {@link RegionModel}.
-     * @return the newly parsed {@link Region} or {@code null} if invalid.
+     * @param arena the arena.
      */
-    private Region parseRegion(RegionModel model) {
-        // Parse the minimum and maximum block positions.
-        BlockPos max = parseBlockPos(model.getMax());
-        BlockPos min = parseBlockPos(model.getMin());
+    private void cacheSpawns(Arena arena) {
+        spawnCache.put(arena.getId(), arena);
 
-        // Do not parse any more if the max or min block positions parsed
-        // are invalid.
-        if (max == null || min == null) {
-            return null;
+        int excess = spawnCache.size() - plugin.getSettings().getLazyArenaCacheSize();
+        Iterator<Arena> it = spawnCache.values().iterator();
+        while (excess > 0 && it.hasNext()) {
+            Arena eldest = it.next();
+            if (eldest == arena || plugin.getGameTask().isArenaInUse(eldest)) {
+                continue;
+            }
+
+            it.remove();
+            excess--;
+            eldest.getSpawns().clear();
+            eldest.setSpawnsLoaded(false);
+            plugin.getStorage().forgetSpawns(eldest.getId());
         }
+    }
 
-        // Create a new region from the parsed block positions.
-        return Region.create(max, min);
+    /**
+     * Binds decoded arenas to their worlds and adds them.
+     *
+     * @param records the arena records.
+     * @param start   when loading started, in nanoseconds.
+     * @param decoded when the records were decoded, in nanoseconds.
+     */
+    private void bind(List<ArenaRecord> records, long start, long decoded) {
+        long bindStart = System.nanoTime();
+        Map<String, World> worlds = new HashMap<>();
+        for (ArenaRecord record : records) {
+            Arena arena = record.bind(name -> worlds.computeIfAbsent(name, plugin.getServer()::getWorld));
+            if (arena != null) {
+                addArena(arena);
+            } else {
+                defer(record, getUnloadedWorld(record));
+            }
+        }
+        ready = true;
+
+        long end = System.nanoTime();
+        plugin.getLogger().info("Loaded " + arenaList.size() + " of " + records.size() + " arenas in " +
+                TimeUnit.NANOSECONDS.toMillis(end - start) + "ms (fetch " +
+                TimeUnit.NANOSECONDS.toMillis(decoded - start) + "ms, bind " +
+                TimeUnit.NANOSECONDS.toMillis(end - bindStart) + "ms on the server thread)");
+        if (!pendingArenas.isEmpty()) {
+            plugin.getLogger().info(pendingNames.size() + " arenas will load once their worlds load: " +
+                    pendingArenas.keySet());
+        }
     }
 
     /**
-     * Parses a block position model into a usable block position.
+     * Binds every arena waiting for a world, now that it has loaded.
      *
-     * @param model the {@link BlockPosModel}.
-     * @return the newly parsed {@link BlockPos} or {@code null} if invalid.
+     * @param world the world.
      */
-    private BlockPos parseBlockPos(BlockPosModel model) {
-        // Parse the world.
-        World world = parseWorld(model.getWorld());
+    public void bindWorld(World world) {
+        List<ArenaRecord> records = pendingArenas.remove(world.getName().toLowerCase());
+        if (records == null) {
+            return;
+        }
 
-        // Do not parse any more if the world is invalid.
-        if (world == null) {
-            return null;
+        int bound = 0;
+        for (ArenaRecord record : records) {
+            pendingNames.remove(record.getName().toLowerCase());
+            Arena arena = record.bind(plugin.getServer()::getWorld);
+            if (arena != null) {
+                addArena(arena);
+                bound++;
+            } else {
+                // The region spans another world which is not loaded yet.
+                defer(record, getUnloadedWorld(record));
+            }
         }
 
-        // Create a new block position from the position model.
-        return new BlockPos(world, model.getX(), model.getY(), model.getZ());
+        plugin.getLogger().info("Loaded " + bound + " arenas in " + world.getName());
     }
 
     /**
-     * Parses an arena spawn model into a usable arena spawn.
+     * Unbinds every arena in a world which is unloading, keeping them until
+     * the world loads again.
      *
-     * @param model the {@link ArenaSpawnModel}.
-     * @return the newly parsed {@link ArenaSpawn} or {@code null} if invalid.
+     * @param world the world.
      */
-    private ArenaSpawn parseArenaSpawn(ArenaSpawnModel model) {
-        // Parse the world.
-        EntityPosModel pos = model.getEntityPos();
-        World world = parseWorld(pos.getWorld());
+    public void unbindWorld(World world) {
+        List<Arena> unbound = new ArrayList<>();
+        for (Arena arena : arenaList) {
+            Region region = arena.getRegion();
+            if (region.getMax().getWorld() == world || region.getMin().getWorld() == world) {
+                unbound.add(arena);
+            }
+        }
 
-        // Do not parse any more if the world is invalid.
-        if (world == null) {
-            return null;
+        for (Arena arena : unbound) {
+            removeArena(arena);
+            defer(ArenaRecord.of(arena), world.getName());
         }
 
-        // Create a new arena spawn from the spawn model.
-        return new ArenaSpawn(world, pos.getX(), pos.getY(), pos.getZ(), pos.getYaw(), pos.getPitch());
+        if (!unbound.isEmpty()) {
+            plugin.getLogger().info("Unloaded " + unbound.size() + " arenas in " + world.getName());
+        }
+    }
+
+    /**
+     * Keeps an arena until a world it needs is loaded.
+     *
+     * @param record the arena record.
+     * @param world  the name of the world to wait for.
+     */
+    private void defer(ArenaRecord record, String world) {
+        pendingArenas.computeIfAbsent(world.toLowerCase(), key -> new ArrayList<>()).add(record);
+        pendingNames.put(record.getName().toLowerCase(), record);
     }
 
     /**
-     * Parses a world model into a usable world.
+     * Gets the name of a world an arena needs which is not loaded.
      *
-     * @param model the {@link WorldModel}.
-     * @return the newly parsed {@link World} or {@code null} if invalid.
+     * @param record the arena record.
+     * @return the world name.
      */
-    private World parseWorld(WorldModel model) {
-        return plugin.getServer().getWorld(model.getName());
+    private String getUnloadedWorld(ArenaRecord record) {
+        for (String world : record.getWorlds()) {
+            if (plugin.getServer().getWorld(world) == null) {
+                return world;
+            }
+        }
+
+        // Every world is loaded, so wait for the next load of any of them.
+        return record.getWorlds().iterator().next();
     }
 }
@@ -0,0 +1,242 @@
+package com.daegonner.lms;
+
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.ArenaSpawn;
+import com.daegonner.lms.entity.BlockPos;
+import com.daegonner.lms.entity.Region;
+import com.daegonner.lms.model.*;
+import org.bukkit.World;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * An arena as stored in the database, decoded from its models so it can be
+ * read without touching the database again. Worlds are referenced by name
+ * until the arena is bound, as worlds may only be looked up on the server
+ * thread. Records of lazily loaded arenas leave out the spawns.
+ */
+public class ArenaRecord {
+
+    private final int id;
+    private final String name;
+    private final Position max;
+    private final Position min;
+    private final List<Position> spawns;
+
+    /**
+     * Creates an arena record.
+     *
+     * @param id     the id the arena is stored under.
+     * @param name   the arena name.
+     * @param max    the maximum corner of the region.
+     * @param min    the minimum corner of the region.
+     * @param spawns the spawns, or {@code null} if they are not loaded.
+     */
+    public ArenaRecord(int id, String name, Position max, Position min, List<Position> spawns) {
+        this.id = id;
+        this.name = name;
+        this.max = max;
+        this.min = min;
+        this.spawns = spawns;
+    }
+
+    /**
+     * Decodes an arena model and every model it references. Safe to call off
+     * the server thread.
+     *
+     * @param model the {@link ArenaModel}.
+     * @return the record, or {@code null} if the model has no valid region.
+     */
+    public static ArenaRecord decode(ArenaModel model) {
+        return decode(model, true);
+    }
+
+    /**
+     * Decodes an arena model and its region, leaving the spawns to be loaded
+     * once the arena is used. Safe to call off the server thread.
+     *
+     * @param model the {@link ArenaModel}.
+     * @return the record, or {@code null} if the model has no valid region.
+     */
+    public static ArenaRecord decodeBounds(ArenaModel model) {
+        return decode(model, false);
+    }
+
+    private static ArenaRecord decode(ArenaModel model, boolean withSpawns) {
+        RegionModel region = model.getRegion();
+        if (region == null) {
+            return null;
+        }
+
+        Position max = decode(region.getMax());
+        Position min = decode(region.getMin());
+        if (max == null || min == null) {
+            return null;
+        }
+
+        if (!withSpawns) {
+            return new ArenaRecord(model.getId(), model.getName(), max, min, null);
+        }
+
+        List<Position> spawns = new ArrayList<>();
+        if (model.getSpawns() != null) {
+            for (ArenaSpawnModel spawn : model.getSpawns()) {
+                EntityPosModel pos = spawn.getEntityPos();
+                if (pos != null && pos.getWorld() != null) {
+                    spawns.add(new Position(pos.getWorld().getName(), pos.getX(), pos.getY(), pos.getZ(),
+                            pos.getYaw(), pos.getPitch()));
+                }
+            }
+        }
+
+        return new ArenaRecord(model.getId(), model.getName(), max, min, Collections.unmodifiableList(spawns));
+    }
+
+    private static Position decode(BlockPosModel pos) {
+        if (pos == null || pos.getWorld() == null) {
+            return null;
+        }
+        return new Position(pos.getWorld().getName(), pos.getX(), pos.getY(), pos.getZ(), 0, 0);
+    }
+
+    /**
+     * Captures the current state of a loaded arena, so it can be bound again
+     * later without reading it back from the database.
+     *
+     * @param arena the arena.
+     * @return the record.
+     */
+    public static ArenaRecord of(Arena arena) {
+        Position max = of(arena.getRegion().getMax());
+        Position min = of(arena.getRegion().getMin());
+        if (!arena.isSpawnsLoaded()) {
+            return new ArenaRecord(arena.getId(), arena.getName(), max, min, null);
+        }
+
+        List<Position> spawns = new ArrayList<>(arena.getSpawns().size());
+        for (ArenaSpawn spawn : arena.getSpawns()) {
+            spawns.add(new Position(spawn.getWorld().getName(), spawn.getX(), spawn.getY(), spawn.getZ(),
+                    spawn.getYaw(), spawn.getPitch()));
+        }
+
+        return new ArenaRecord(arena.getId(), arena.getName(), max, min, Collections.unmodifiableList(spawns));
+    }
+
+    private static Position of(BlockPos pos) {
+        return new Position(pos.getWorld().getName(), pos.getX(), pos.getY(), pos.getZ(), 0, 0);
+    }
+
+    /**
+     * Gets the id the arena is stored under.
+     *
+     * @return the id.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the arena name.
+     *
+     * @return the name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the names of the worlds the arena region is in. The arena can
+     * only be bound while all of them are loaded.
+     *
+     * @return the world names.
+     */
+    public Set<String> getWorlds() {
+        Set<String> target = new HashSet<>(2);
+        target.add(max.world);
+        target.add(min.world);
+        return target;
+    }
+
+    /**
+     * Binds this record to loaded worlds, creating a usable arena. Spawns in
+     * worlds that are not loaded are left out, and if this record has no
+     * spawns the arena is marked as not having its spawns loaded.
+     *
+     * @param worlds looks up a loaded world by name, returning {@code null}
+     *               if it is not loaded.
+     * @return the arena, or {@code null} if its region is in a world that is
+     * not loaded.
+     */
+    public Arena bind(Function<String, World> worlds) {
+        World maxWorld = worlds.apply(max.world);
+        World minWorld = worlds.apply(min.world);
+        if (maxWorld == null || minWorld == null) {
+            return null;
+        }
+
+        Region region = Region.create(
+                new BlockPos(maxWorld, (int) max.x, (int) max.y, (int) max.z),
+                new BlockPos(minWorld, (int) min.x, (int) min.y, (int) min.z));
+        Arena arena = new Arena(name, region);
+        arena.setId(id);
+
+        if (spawns == null) {
+            arena.setSpawnsLoaded(false);
+        } else {
+            bindSpawns(arena, worlds);
+        }
+        return arena;
+    }
+
+    /**
+     * Replaces the spawns of an arena with the spawns of this record, marking
+     * them as loaded. Spawns in worlds that are not loaded are left out.
+     *
+     * @param arena  the arena.
+     * @param worlds looks up a loaded world by name, returning {@code null}
+     *               if it is not loaded.
+     */
+    public void bindSpawns(Arena arena, Function<String, World> worlds) {
+        arena.getSpawns().clear();
+        if (spawns != null) {
+            for (Position spawn : spawns) {
+                World world = worlds.apply(spawn.world);
+                if (world != null) {
+                    arena.getSpawns().add(new ArenaSpawn(world, spawn.x, spawn.y, spawn.z, spawn.yaw, spawn.pitch));
+                }
+            }
+        }
+        arena.setSpawnsLoaded(true);
+    }
+
+    @Override
+    public String toString() {
+        return "ArenaRecord{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                '}';
+    }
+
+    /**
+     * A position in a world referenced by name.
+     */
+    public static class Position {
+
+        private final String world;
+        private final double x;
+        private final double y;
+        private final double z;
+        private final float yaw;
+        private final float pitch;
+
+        public Position(String world, double x, double y, double z, float yaw, float pitch) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.yaw = yaw;
+            this.pitch = pitch;
+        }
+    }
+}
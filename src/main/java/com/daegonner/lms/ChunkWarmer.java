@@ -0,0 +1,183 @@
+package com.daegonner.lms;
+
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.ArenaSpawn;
+import com.daegonner.lms.entity.BlockPos;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.util.NumberConversions;
+
+import java.util.*;
+
+/**
+ * Loads the chunks of an {@link Arena} ahead of use, spread across ticks,
+ * and keeps them loaded until released. Chunks are held per owner, such as
+ * a lobby or game, so several owners may share the same chunks.
+ */
+public class ChunkWarmer {
+
+    private final Map<World, Map<Long, Integer>> held = new HashMap<>();
+    private final Map<Object, Request> requests = new IdentityHashMap<>();
+
+    /**
+     * Starts warming the chunks of an arena for an owner. If the owner was
+     * already warming a different arena, that arena is released.
+     *
+     * @param owner the owner of the request.
+     * @param arena the arena to warm.
+     */
+    public void warm(Object owner, Arena arena) {
+        Request current = requests.get(owner);
+        if (current != null && current.arena == arena) {
+            return;
+        }
+
+        Request request = Request.of(arena);
+        hold(request);
+        requests.put(owner, request);
+
+        if (current != null) {
+            release(current);
+        }
+    }
+
+    /**
+     * Releases all chunks held for an owner.
+     *
+     * @param owner the owner of the request.
+     */
+    public void release(Object owner) {
+        Request request = requests.remove(owner);
+        if (request != null) {
+            release(request);
+        }
+    }
+
+    /**
+     * Loads up to the given number of pending chunks across all requests.
+     *
+     * @param budget the maximum chunks to load.
+     */
+    public void tick(int budget) {
+        for (Request request : requests.values()) {
+            while (budget > 0 && request.next < request.chunks.length) {
+                long key = request.chunks[request.next++];
+                int x = chunkX(key);
+                int z = chunkZ(key);
+                if (!request.world.isChunkLoaded(x, z)) {
+                    request.world.loadChunk(x, z);
+                    budget--;
+                }
+            }
+
+            if (budget <= 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks if a chunk is held loaded by any owner.
+     *
+     * @param chunk the chunk.
+     * @return {@code true} if the chunk must stay loaded.
+     */
+    public boolean isHeld(Chunk chunk) {
+        Map<Long, Integer> chunks = held.get(chunk.getWorld());
+        return chunks != null && chunks.containsKey(key(chunk.getX(), chunk.getZ()));
+    }
+
+    private void hold(Request request) {
+        Map<Long, Integer> chunks = held.computeIfAbsent(request.world, w -> new HashMap<>());
+        for (long key : request.chunks) {
+            chunks.merge(key, 1, Integer::sum);
+        }
+    }
+
+    private void release(Request request) {
+        Map<Long, Integer> chunks = held.get(request.world);
+        if (chunks == null) {
+            return;
+        }
+
+        for (long key : request.chunks) {
+            Integer count = chunks.get(key);
+            if (count == null) {
+                continue;
+            }
+
+            if (count > 1) {
+                chunks.put(key, count - 1);
+                continue;
+            }
+
+            // Let the server unload chunks no longer held, if no players are near.
+            chunks.remove(key);
+            int x = chunkX(key);
+            int z = chunkZ(key);
+            if (request.world.isChunkLoaded(x, z)) {
+                request.world.unloadChunkRequest(x, z, true);
+            }
+        }
+
+        if (chunks.isEmpty()) {
+            held.remove(request.world);
+        }
+    }
+
+    private static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    private static int chunkX(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int chunkZ(long key) {
+        return (int) key;
+    }
+
+    /**
+     * The chunks of one arena, ordered spawns first, and how many of them
+     * have been loaded so far.
+     */
+    private static class Request {
+
+        private final Arena arena;
+        private final World world;
+        private final long[] chunks;
+        private int next;
+
+        private Request(Arena arena, World world, long[] chunks) {
+            this.arena = arena;
+            this.world = world;
+            this.chunks = chunks;
+        }
+
+        private static Request of(Arena arena) {
+            BlockPos min = arena.getRegion().getMin();
+            BlockPos max = arena.getRegion().getMax();
+            Set<Long> chunks = new LinkedHashSet<>();
+
+            for (ArenaSpawn spawn : arena.getSpawns()) {
+                if (spawn.getWorld() == min.getWorld()) {
+                    chunks.add(key(NumberConversions.floor(spawn.getX()) >> 4,
+                            NumberConversions.floor(spawn.getZ()) >> 4));
+                }
+            }
+
+            for (int x = min.getX() >> 4; x <= max.getX() >> 4; x++) {
+                for (int z = min.getZ() >> 4; z <= max.getZ() >> 4; z++) {
+                    chunks.add(key(x, z));
+                }
+            }
+
+            long[] target = new long[chunks.size()];
+            int i = 0;
+            for (long key : chunks) {
+                target[i++] = key;
+            }
+            return new Request(arena, min.getWorld(), target);
+        }
+    }
+}
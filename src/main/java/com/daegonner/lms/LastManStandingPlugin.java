@@ -5,9 +5,17 @@ import com.daegonner.lms.command.UserCommands;
 import com.daegonner.lms.command.parameter.Bindings;
 import com.daegonner.lms.entity.Arena;
 import com.daegonner.lms.listener.PlayerListener;
+import com.daegonner.lms.listener.WorldListener;
+import com.daegonner.lms.metrics.Metrics;
 import com.daegonner.lms.model.*;
 import com.daegonner.lms.settings.Settings;
+import com.daegonner.lms.settings.SettingsReloader;
+import com.daegonner.lms.storage.EbeanStorage;
+import com.daegonner.lms.storage.SqliteStorage;
+import com.daegonner.lms.storage.Storage;
+import com.daegonner.lms.storage.StorageException;
 import com.daegonner.lms.task.GameTask;
+import com.daegonner.lms.task.MetricsTask;
 import com.google.common.collect.ImmutableList;
 import com.sk89q.intake.CommandException;
 import com.sk89q.intake.InvalidUsageException;
@@ -23,14 +31,15 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
 
-import javax.persistence.PersistenceException;
+import java.io.File;
 import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.logging.Level;
 
 import static org.bukkit.ChatColor.*;
@@ -52,25 +61,78 @@ public class LastManStandingPlugin extends JavaPlugin {
             LobbyScheduleModel.class
     );
 
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
-    private final Settings settings = new Settings(this);
+    private final PersistenceService persistenceService = new PersistenceService(this);
+    private final ModelCache modelCache = new ModelCache();
+    private final SnapshotJournal snapshotJournal = new SnapshotJournal(this);
+    private final RewardCrates rewardCrates = new RewardCrates(this);
+    private final Messenger messenger = new Messenger(this);
+    private final Metrics metrics = new Metrics(this);
+    private final MetricsTask metricsTask = new MetricsTask(this);
+    private final SettingsReloader settingsReloader = new SettingsReloader(this);
     private final ArenaManager arenaManager = new ArenaManager(this);
     private final GameTask gameTask = new GameTask(this);
     private final ImmutableList<Listener> listeners = ImmutableList.of(
-            new PlayerListener(this)
+            new PlayerListener(this),
+            new WorldListener(this)
     );
+    private Storage storage;
     private Dispatcher dispatcher;
 
+    public LastManStandingPlugin() {
+    }
+
+    /**
+     * Creates the plugin outside of a server's plugin class loader, such as
+     * by the load simulation.
+     *
+     * @param loader      the plugin loader.
+     * @param description the plugin description.
+     * @param dataFolder  the data folder.
+     * @param file        the plugin file.
+     */
+    protected LastManStandingPlugin(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder,
+                                    File file) {
+        super(loader, description, dataFolder, file);
+    }
+
     public static ImmutableList<String> getRewardCrateLore() {
         return REWARD_CRATE_LORE;
     }
 
-    public ExecutorService getExecutorService() {
-        return executorService;
+    public PersistenceService getPersistenceService() {
+        return persistenceService;
+    }
+
+    public ModelCache getModelCache() {
+        return modelCache;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public SnapshotJournal getSnapshotJournal() {
+        return snapshotJournal;
+    }
+
+    public RewardCrates getRewardCrates() {
+        return rewardCrates;
+    }
+
+    public Messenger getMessenger() {
+        return messenger;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
     }
 
     public Settings getSettings() {
-        return settings;
+        return settingsReloader.get();
+    }
+
+    public SettingsReloader getSettingsReloader() {
+        return settingsReloader;
     }
 
     public ArenaManager getArenaManager() {
@@ -87,21 +149,31 @@ public class LastManStandingPlugin extends JavaPlugin {
             return;
 
         registerCommands();
-        setupDatabase();
+        if (setupStorage())
+            return;
+
+        setupSnapshotJournal();
+        if (setupRewardCrates())
+            return;
+
         arenaManager.setup();
         gameTask.runTaskTimer(this, 1, 1);
+        messenger.runTaskTimer(this, 1, 1);
+        setupMetrics();
         listeners.forEach(listener -> getServer().getPluginManager().registerEvents(listener, this));
     }
 
     @Override
     public void onDisable() {
-        if (gameTask.hasGame()) {
-            gameTask.getGame().stop();
-        }
-
-        if (gameTask.hasLobby()) {
-            gameTask.closeLobby();
+        gameTask.stopGames();
+        gameTask.closeLobbies();
+        messenger.run();
+        persistenceService.shutdown();
+        if (storage != null) {
+            storage.close();
         }
+        snapshotJournal.close();
+        settingsReloader.shutdown();
     }
 
     /**
@@ -111,7 +183,7 @@ public class LastManStandingPlugin extends JavaPlugin {
      */
     public boolean setupSettings() {
         try {
-            settings.load();
+            settingsReloader.load();
         } catch (IOException | InvalidConfigurationException e) {
             getLogger().log(Level.SEVERE, "===============");
             getLogger().log(Level.SEVERE, "");
@@ -129,13 +201,70 @@ public class LastManStandingPlugin extends JavaPlugin {
         return false;
     }
 
-    private void setupDatabase() {
+    /**
+     * Opens the configured storage.
+     *
+     * @return {@code true} if the storage could not be opened.
+     */
+    private boolean setupStorage() {
+        String type = getSettings().getStorageType();
+        if (type.equalsIgnoreCase("sqlite")) {
+            storage = new SqliteStorage(new File(getDataFolder(), "lms.db"), getLogger());
+        } else {
+            if (!type.equalsIgnoreCase("ebean")) {
+                getLogger().warning("Unknown storage type " + type + ", using ebean");
+            }
+            storage = new EbeanStorage(this, this::installDDL);
+        }
+
+        try {
+            storage.open();
+        } catch (StorageException e) {
+            getLogger().log(Level.SEVERE, "Failed to open the storage, disabling plugin", e);
+            storage = null;
+            getServer().getPluginManager().disablePlugin(this);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Loads the key reward crates are signed with.
+     *
+     * @return {@code true} if the key could not be loaded.
+     */
+    private boolean setupRewardCrates() {
         try {
-            getDatabase().find(ArenaSpawnModel.class).findRowCount();
-        } catch (PersistenceException ex) {
-            getLogger().info("Installing database due to first time usage.");
-            installDDL();
+            rewardCrates.load();
+        } catch (IOException | GeneralSecurityException e) {
+            getLogger().log(Level.SEVERE, "Failed to load the reward crate key, disabling plugin", e);
+            getServer().getPluginManager().disablePlugin(this);
+            return true;
         }
+        return false;
+    }
+
+    private void setupMetrics() {
+        metrics.registerGauge("db-queue", persistenceService::getQueueDepth);
+        metrics.registerGauge("journal-queue", snapshotJournal::getQueueDepth);
+        metrics.registerGauge("lobbies", () -> gameTask.getLobbies().size());
+        metrics.registerGauge("games", () -> gameTask.getGames().size());
+        metrics.registerGauge("chat-packets-sent", messenger::getPacketsSent);
+        metrics.registerGauge("chat-packets-saved", messenger::getPacketsSaved);
+        metricsTask.runTaskTimer(this, 20, 20);
+    }
+
+    private void setupSnapshotJournal() {
+        try {
+            snapshotJournal.load();
+        } catch (IOException e) {
+            getLogger().log(Level.SEVERE, "Failed to load the player snapshot journal, " +
+                    "snapshots will not be journaled", e);
+            return;
+        }
+
+        // Restore players left in a game by a reload, the rest recover on join.
+        getServer().getOnlinePlayers().forEach(snapshotJournal::recover);
     }
 
     @Override
@@ -0,0 +1,217 @@
+package com.daegonner.lms;
+
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.*;
+
+/**
+ * Delivers all LMS chat messages. Messages are sent only to the players
+ * they concern, and every message queued for a player within a tick is sent
+ * together as a single chat packet. Chatty categories are rate limited per
+ * player.
+ */
+public class Messenger extends BukkitRunnable {
+
+    private final LastManStandingPlugin plugin;
+    private final Map<Player, List<String>> queued = new LinkedHashMap<>();
+    private final Map<Category, Map<Player, Long>> lastSent = new EnumMap<>(Category.class);
+
+    private long packetsSent = 0;
+    private long messagesCoalesced = 0;
+    private long messagesSuppressed = 0;
+    private long recipientsSkipped = 0;
+
+    public Messenger(LastManStandingPlugin plugin) {
+        this.plugin = plugin;
+        for (Category category : Category.values()) {
+            lastSent.put(category, new WeakHashMap<>());
+        }
+    }
+
+    /**
+     * Sends any messages queued this tick.
+     */
+    @Override
+    public void run() {
+        if (queued.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<Player, List<String>> entry : queued.entrySet()) {
+            Player player = entry.getKey();
+            List<String> messages = entry.getValue();
+            if (!player.isOnline()) {
+                continue;
+            }
+
+            if (messages.size() == 1) {
+                player.sendMessage(messages.get(0));
+            } else {
+                player.spigot().sendMessage(TextComponent.fromLegacyText(String.join("\n", messages)));
+                messagesCoalesced += messages.size() - 1;
+            }
+            packetsSent++;
+        }
+        queued.clear();
+    }
+
+    /**
+     * Queues a message for a player.
+     *
+     * @param player  the player.
+     * @param message the message, ignored if empty.
+     */
+    public void send(Player player, String message) {
+        send(player, message, Category.GENERAL);
+    }
+
+    /**
+     * Queues a message for a player, unless it is rate limited.
+     *
+     * @param player   the player.
+     * @param message  the message, ignored if empty.
+     * @param category the category of the message.
+     */
+    public void send(Player player, String message, Category category) {
+        if (message.isEmpty()) {
+            return;
+        }
+
+        if (isRateLimited(player, category)) {
+            messagesSuppressed++;
+            return;
+        }
+
+        queued.computeIfAbsent(player, p -> new ArrayList<>(1)).add(message);
+    }
+
+    /**
+     * Queues a message for every player in an audience, such as a lobby
+     * queue or the participants of a game.
+     *
+     * @param audience the players.
+     * @param message  the message, ignored if empty.
+     * @param category the category of the message.
+     */
+    public void send(Collection<? extends Player> audience, String message, Category category) {
+        if (message.isEmpty()) {
+            return;
+        }
+
+        for (Player player : audience) {
+            send(player, message, category);
+        }
+    }
+
+    /**
+     * Queues a message that was once broadcast for only the audience it
+     * concerns, counting every other online player as a recipient skipped.
+     *
+     * @param audience the players.
+     * @param message  the message, ignored if empty.
+     * @param category the category of the message.
+     */
+    public void announce(Collection<? extends Player> audience, String message, Category category) {
+        if (message.isEmpty()) {
+            return;
+        }
+
+        recipientsSkipped += Math.max(0, plugin.getServer().getOnlinePlayers().size() - audience.size());
+        send(audience, message, category);
+    }
+
+    /**
+     * Queues a message for everyone online, and logs it to the console.
+     *
+     * @param message  the message, ignored if empty.
+     * @param category the category of the message.
+     */
+    public void broadcast(String message, Category category) {
+        if (message.isEmpty()) {
+            return;
+        }
+
+        plugin.getServer().getConsoleSender().sendMessage(message);
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            send(player, message, category);
+        }
+    }
+
+    private boolean isRateLimited(Player player, Category category) {
+        long interval = category.getInterval(plugin);
+        if (interval <= 0) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        Long last = lastSent.get(category).get(player);
+        if (last != null && now - last < interval) {
+            return true;
+        }
+
+        lastSent.get(category).put(player, now);
+        return false;
+    }
+
+    /**
+     * Gets the number of chat packets sent.
+     *
+     * @return the packets sent.
+     */
+    public long getPacketsSent() {
+        return packetsSent;
+    }
+
+    /**
+     * Gets the number of messages merged into a packet already being sent to
+     * the same player in the same tick.
+     *
+     * @return the messages coalesced.
+     */
+    public long getMessagesCoalesced() {
+        return messagesCoalesced;
+    }
+
+    /**
+     * Gets the number of messages dropped by rate limiting.
+     *
+     * @return the messages suppressed.
+     */
+    public long getMessagesSuppressed() {
+        return messagesSuppressed;
+    }
+
+    /**
+     * Gets the number of online players not sent an announcement, which
+     * would have received it when it was broadcast to everyone.
+     *
+     * @return the recipients skipped.
+     */
+    public long getRecipientsSkipped() {
+        return recipientsSkipped;
+    }
+
+    /**
+     * Gets the number of packets saved by targeting, coalescing and rate
+     * limiting messages.
+     *
+     * @return the packets saved.
+     */
+    public long getPacketsSaved() {
+        return messagesCoalesced + messagesSuppressed + recipientsSkipped;
+    }
+
+    /**
+     * A category of message, which may be rate limited.
+     */
+    public enum Category {
+        GENERAL,
+        COUNTDOWN;
+
+        private long getInterval(LastManStandingPlugin plugin) {
+            return this == COUNTDOWN ? plugin.getSettings().getCountdownMessageInterval() : 0;
+        }
+    }
+}
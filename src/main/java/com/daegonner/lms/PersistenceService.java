@@ -0,0 +1,316 @@
+package com.daegonner.lms;
+
+import com.daegonner.lms.metrics.Metrics;
+import com.daegonner.lms.storage.Storage;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Runs all LMS database writes off the server thread. Pending writes are
+ * flushed together in a single transaction, and writes submitted under the
+ * same key are coalesced so only the latest is performed.
+ */
+public class PersistenceService {
+
+    private static final long SHUTDOWN_TIMEOUT = 30;
+
+    private final LastManStandingPlugin plugin;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Map<Object, Entry<?>> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
+    public PersistenceService(LastManStandingPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Creates a key identifying a specific object, compared by identity
+     * rather than equality, for use with {@link #update(Object, Runnable)}.
+     *
+     * @param type  the type of write.
+     * @param owner the object being written.
+     * @return the key.
+     */
+    public static Object key(Class<?> type, Object owner) {
+        return new Key(type, owner);
+    }
+
+    /**
+     * Queues a database write.
+     *
+     * @param job the write to perform.
+     */
+    public void execute(Runnable job) {
+        execute(job, null);
+    }
+
+    /**
+     * Queues a database write.
+     *
+     * @param job      the write to perform.
+     * @param callback ran on the server thread once the write is committed.
+     */
+    public void execute(Runnable job, Runnable callback) {
+        execute(job, callback, null);
+    }
+
+    /**
+     * Queues a database write.
+     *
+     * @param job       the write to perform.
+     * @param callback  ran on the server thread once the write is committed.
+     * @param onFailure ran on the server thread if the write failed.
+     */
+    public void execute(Runnable job, Runnable callback, Consumer<Exception> onFailure) {
+        enqueue(new Object(), asSupplier(job), asConsumer(callback), onFailure);
+    }
+
+    /**
+     * Queues a database write which produces a result, such as a generated
+     * id.
+     *
+     * @param job      the write to perform.
+     * @param callback ran on the server thread with the result once the
+     *                 write is committed.
+     * @param <T>      the type of result.
+     */
+    public <T> void execute(Supplier<T> job, Consumer<? super T> callback) {
+        execute(job, callback, null);
+    }
+
+    /**
+     * Queues a database write which produces a result, such as a generated
+     * id.
+     *
+     * @param job       the write to perform.
+     * @param callback  ran on the server thread with the result once the
+     *                  write is committed.
+     * @param onFailure ran on the server thread if the write failed.
+     * @param <T>       the type of result.
+     */
+    public <T> void execute(Supplier<T> job, Consumer<? super T> callback, Consumer<Exception> onFailure) {
+        enqueue(new Object(), job, callback, onFailure);
+    }
+
+    /**
+     * Queues a database write, replacing any write pending under the same
+     * key.
+     *
+     * @param key the key to coalesce writes by.
+     * @param job the write to perform.
+     */
+    public void update(Object key, Runnable job) {
+        update(key, job, null);
+    }
+
+    /**
+     * Queues a database write, replacing any write pending under the same
+     * key.
+     *
+     * @param key      the key to coalesce writes by.
+     * @param job      the write to perform.
+     * @param callback ran on the server thread once the write is committed.
+     */
+    public void update(Object key, Runnable job, Runnable callback) {
+        update(key, job, callback, null);
+    }
+
+    /**
+     * Queues a database write, replacing any write pending under the same
+     * key. Callbacks of replaced writes are dropped, as what they would
+     * report is no longer what is written. The replacement is performed
+     * after every write queued before it, as it may depend on them.
+     *
+     * @param key       the key to coalesce writes by.
+     * @param job       the write to perform.
+     * @param callback  ran on the server thread once the write is committed.
+     * @param onFailure ran on the server thread if the write failed.
+     */
+    public void update(Object key, Runnable job, Runnable callback, Consumer<Exception> onFailure) {
+        enqueue(key, asSupplier(job), asConsumer(callback), onFailure);
+    }
+
+    private static Supplier<Void> asSupplier(Runnable job) {
+        return () -> {
+            job.run();
+            return null;
+        };
+    }
+
+    private static Consumer<Void> asConsumer(Runnable callback) {
+        return callback == null ? null : result -> callback.run();
+    }
+
+    /**
+     * Gets the number of writes waiting to be performed.
+     *
+     * @return the queue depth.
+     */
+    public synchronized long getQueueDepth() {
+        return pending.size();
+    }
+
+    private synchronized <T> void enqueue(Object key, Supplier<T> job, Consumer<? super T> callback,
+                                          Consumer<Exception> onFailure) {
+        // Move a replaced write to the end, keeping writes in the order they were last queued.
+        pending.remove(key);
+        pending.put(key, new Entry<>(job, callback, onFailure));
+
+        // Writes queued after shutdown are performed by the final flush.
+        if (!flushScheduled && !executor.isShutdown()) {
+            flushScheduled = true;
+            executor.execute(this::flush);
+        }
+    }
+
+    /**
+     * Performs every pending write in a single transaction. Should the
+     * transaction fail, each write is retried in its own transaction so that
+     * one bad write does not lose the others.
+     */
+    private void flush() {
+        List<Entry<?>> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+            flushScheduled = false;
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = plugin.getMetrics().start();
+        Storage storage = plugin.getStorage();
+        if (runInTransaction(storage, batch) != null) {
+            plugin.getLogger().warning("Batch of " + batch.size() + " database writes failed, retrying individually");
+            for (Entry<?> entry : batch) {
+                entry.failure = runInTransaction(storage, Collections.<Entry<?>>singletonList(entry));
+            }
+        }
+        plugin.getMetrics().stop(Metrics.Timer.DB_FLUSH, start);
+
+        // Notify the server thread of every committed or failed write.
+        if (plugin.isEnabled()) {
+            for (Entry<?> entry : batch) {
+                if (entry.isNotifying()) {
+                    plugin.getServer().getScheduler().runTask(plugin, entry::notifyDone);
+                }
+            }
+        }
+    }
+
+    /**
+     * Performs writes in a single transaction.
+     *
+     * @param storage the storage to write to.
+     * @param entries the writes.
+     * @return the failure, or {@code null} if the writes were committed.
+     */
+    private RuntimeException runInTransaction(Storage storage, List<Entry<?>> entries) {
+        try {
+            storage.inTransaction(() -> {
+                for (Entry<?> entry : entries) {
+                    long start = plugin.getMetrics().start();
+                    entry.run();
+                    plugin.getMetrics().stop(Metrics.Timer.DB_JOB, start);
+                }
+            });
+            return null;
+        } catch (RuntimeException e) {
+            if (entries.size() == 1) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to perform database write", e);
+            }
+            return e;
+        }
+    }
+
+    /**
+     * Stops accepting new flushes and waits for every pending write to be
+     * performed.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                plugin.getLogger().severe("Timed out waiting for database writes to finish");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // Perform anything queued after the final scheduled flush.
+        flush();
+    }
+
+    /**
+     * A pending write and whoever is waiting on it.
+     *
+     * @param <T> the type of result.
+     */
+    private static class Entry<T> {
+
+        private final Supplier<T> job;
+        private final Consumer<? super T> callback;
+        private final Consumer<Exception> onFailure;
+        private T result;
+        private RuntimeException failure;
+
+        private Entry(Supplier<T> job, Consumer<? super T> callback, Consumer<Exception> onFailure) {
+            this.job = job;
+            this.callback = callback;
+            this.onFailure = onFailure;
+        }
+
+        private void run() {
+            result = job.get();
+        }
+
+        private boolean isNotifying() {
+            return failure == null ? callback != null : onFailure != null;
+        }
+
+        private void notifyDone() {
+            if (failure == null) {
+                callback.accept(result);
+            } else {
+                onFailure.accept(failure);
+            }
+        }
+    }
+
+    /**
+     * A coalescing key comparing its owner by identity.
+     */
+    private static class Key {
+
+        private final Class<?> type;
+        private final Object owner;
+
+        private Key(Class<?> type, Object owner) {
+            this.type = type;
+            this.owner = owner;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return type == key.type && owner == key.owner;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + System.identityHashCode(owner);
+        }
+    }
+}
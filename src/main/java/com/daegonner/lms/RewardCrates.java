@@ -0,0 +1,180 @@
+package com.daegonner.lms;
+
+import com.daegonner.lms.entity.Arena;
+import org.bukkit.ChatColor;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Creates and identifies the reward crates given to LMS winners. Each crate
+ * carries a hidden lore token holding the id of the arena it was won in,
+ * signed with a key private to the server, so crates can neither be forged
+ * nor moved to another arena.
+ */
+public class RewardCrates {
+
+    private static final String TOKEN_PREFIX = "" + ChatColor.COLOR_CHAR + "1" + ChatColor.COLOR_CHAR + "3" +
+            ChatColor.COLOR_CHAR + "3" + ChatColor.COLOR_CHAR + "7";
+    private static final int ID_DIGITS = 8;
+    private static final int SIGNATURE_DIGITS = 16;
+    private static final int TOKEN_LENGTH = TOKEN_PREFIX.length() + (ID_DIGITS + SIGNATURE_DIGITS) * 2;
+    private static final int KEY_SIZE = 32;
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final LastManStandingPlugin plugin;
+    private final File keyFile;
+    private Mac mac;
+
+    public RewardCrates(LastManStandingPlugin plugin) {
+        this.plugin = plugin;
+        this.keyFile = new File(plugin.getDataFolder(), "crate.key");
+    }
+
+    /**
+     * Loads the signing key, generating a new one on first use.
+     *
+     * @throws IOException              if the key could not be read or written.
+     * @throws GeneralSecurityException if the signing algorithm is unavailable.
+     */
+    public void load() throws IOException, GeneralSecurityException {
+        byte[] key;
+        if (keyFile.exists()) {
+            key = Files.readAllBytes(keyFile.toPath());
+        } else {
+            key = new byte[KEY_SIZE];
+            new SecureRandom().nextBytes(key);
+            keyFile.getParentFile().mkdirs();
+            Files.write(keyFile.toPath(), key);
+        }
+
+        mac = Mac.getInstance(ALGORITHM);
+        mac.init(new SecretKeySpec(key, ALGORITHM));
+    }
+
+    /**
+     * Creates a reward crate for an arena.
+     *
+     * @param arena the arena the crate was won in.
+     * @return the crate.
+     * @throws IllegalArgumentException if the arena has not been stored yet,
+     *                                  so has no id to sign.
+     */
+    public ItemStack create(Arena arena) {
+        if (arena.getId() == 0) {
+            throw new IllegalArgumentException("Arena " + arena.getName() + " has not been stored yet");
+        }
+
+        ItemStack crate = plugin.getSettings().getRewardCrate().clone();
+        ItemMeta meta = crate.getItemMeta();
+        List<String> lore = meta.hasLore() ?
+                meta.getLore() : new ArrayList<>(LastManStandingPlugin.getRewardCrateLore().size() + 1);
+        for (String line : LastManStandingPlugin.getRewardCrateLore()) {
+            lore.add(line.replace("{arena}", arena.getName()));
+        }
+        lore.add(token(arena.getId()));
+        meta.setLore(lore);
+        crate.setItemMeta(meta);
+        return crate;
+    }
+
+    /**
+     * Checks if an item could be a reward crate, without reading its meta.
+     *
+     * @param stack the item.
+     * @return {@code true} if the item is of the reward crate material.
+     */
+    public boolean isCandidate(ItemStack stack) {
+        return stack != null && stack.getType() == plugin.getSettings().getRewardCrate().getType();
+    }
+
+    /**
+     * Gets the arena a reward crate was won in.
+     *
+     * @param stack the item.
+     * @return the arena, or empty if the item is not a genuine reward crate.
+     */
+    public Optional<Arena> getArena(ItemStack stack) {
+        if (!isCandidate(stack) || !stack.hasItemMeta()) {
+            return Optional.empty();
+        }
+
+        ItemMeta meta = stack.getItemMeta();
+        if (!meta.hasLore()) {
+            return Optional.empty();
+        }
+
+        // The token is appended last, unless something has added lore since.
+        List<String> lore = meta.getLore();
+        for (int i = lore.size() - 1; i >= 0; i--) {
+            String line = lore.get(i);
+            if (line.length() == TOKEN_LENGTH && line.startsWith(TOKEN_PREFIX)) {
+                return parseToken(line);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private String token(int arenaId) {
+        StringBuilder token = new StringBuilder(TOKEN_LENGTH).append(TOKEN_PREFIX);
+        appendHidden(token, arenaId, ID_DIGITS);
+        appendHidden(token, sign(arenaId), SIGNATURE_DIGITS);
+        return token.toString();
+    }
+
+    private Optional<Arena> parseToken(String token) {
+        int offset = TOKEN_PREFIX.length();
+        long arenaId = readHidden(token, offset, ID_DIGITS);
+        long signature = readHidden(token, offset + ID_DIGITS * 2, SIGNATURE_DIGITS);
+        if (arenaId < 0 || signature != sign((int) arenaId)) {
+            return Optional.empty();
+        }
+
+        return plugin.getArenaManager().getArena((int) arenaId);
+    }
+
+    private long sign(int arenaId) {
+        byte[] digest = mac.doFinal(ByteBuffer.allocate(4).putInt(arenaId).array());
+        return ByteBuffer.wrap(digest).getLong();
+    }
+
+    /**
+     * Appends a value as hex digits, each prefixed by a color code character
+     * so they are not rendered.
+     */
+    private static void appendHidden(StringBuilder target, long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            target.append(ChatColor.COLOR_CHAR).append(Character.forDigit((int) (value >>> shift) & 0xF, 16));
+        }
+    }
+
+    /**
+     * Reads hex digits written by {@link #appendHidden}.
+     *
+     * @return the value, or {@code -1} if the digits are malformed.
+     */
+    private static long readHidden(String source, int offset, int digits) {
+        long value = 0;
+        for (int i = 0; i < digits; i++) {
+            int pos = offset + i * 2;
+            int digit = Character.digit(source.charAt(pos + 1), 16);
+            if (source.charAt(pos) != ChatColor.COLOR_CHAR || digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,286 @@
+package com.daegonner.lms;
+
+import com.daegonner.lms.entity.PlayerSnapshot;
+import com.google.common.collect.ImmutableList;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * An append-only journal of every {@link PlayerSnapshot} taken, so players
+ * can be restored should the server stop without ending a game. Snapshots
+ * are serialized and appended off the server thread, with a single fsync
+ * for each batch of appends. Snapshots left in the journal are replayed on
+ * the next enable, or when their player next joins.
+ */
+public class SnapshotJournal {
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int HEADER_SIZE = 17;
+    private static final int MAX_PAYLOAD_SIZE = 16 * 1024 * 1024;
+    private static final long SHUTDOWN_TIMEOUT = 30;
+
+    private final LastManStandingPlugin plugin;
+    private final File file;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Queue<Record> queue = new ConcurrentLinkedQueue<>();
+    private final Map<UUID, byte[]> recovered = new HashMap<>();
+    private boolean drainScheduled = false;
+    private volatile boolean open = false;
+    private FileOutputStream output;
+
+    public SnapshotJournal(LastManStandingPlugin plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "snapshots.journal");
+    }
+
+    /**
+     * Reads every snapshot left over from a previous run, compacts the
+     * journal and opens it for appending.
+     *
+     * @throws IOException if the journal could not be read or written.
+     */
+    public void load() throws IOException {
+        recovered.clear();
+        file.getParentFile().mkdirs();
+
+        if (file.exists()) {
+            long remaining = file.length();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    byte type = in.readByte();
+                    UUID id = new UUID(in.readLong(), in.readLong());
+                    remaining -= HEADER_SIZE;
+                    if (type == PUT) {
+                        int length = in.readInt();
+                        remaining -= 4;
+                        // A length which cannot be right means the rest of
+                        // the journal is torn, so it is read no further.
+                        if (length < 0 || length > MAX_PAYLOAD_SIZE || length > remaining) {
+                            plugin.getLogger().warning("Discarding the corrupt end of the snapshot journal");
+                            break;
+                        }
+
+                        byte[] payload = new byte[length];
+                        in.readFully(payload);
+                        remaining -= length;
+                        recovered.put(id, payload);
+                    } else if (type == REMOVE) {
+                        recovered.remove(id);
+                    } else {
+                        plugin.getLogger().warning("Discarding the corrupt end of the snapshot journal");
+                        break;
+                    }
+                }
+            } catch (EOFException ignored) {
+                // End of the journal, or a record torn by a crash.
+            }
+        }
+
+        // Rewrite the journal with only the snapshots still to be restored.
+        File compacted = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compacted)))) {
+            for (Map.Entry<UUID, byte[]> entry : recovered.entrySet()) {
+                writeRecord(out, PUT, entry.getKey(), entry.getValue());
+            }
+        }
+        Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        output = new FileOutputStream(file, true);
+        open = true;
+
+        if (!recovered.isEmpty()) {
+            plugin.getLogger().info("Recovering " + recovered.size() + " player snapshots from an unclean shutdown");
+        }
+    }
+
+    /**
+     * Restores a player from a snapshot left over from a previous run, if
+     * there is one.
+     *
+     * @param player the player.
+     */
+    public void recover(Player player) {
+        byte[] payload = recovered.remove(player.getUniqueId());
+        if (payload == null) {
+            return;
+        }
+
+        try {
+            decode(player, payload).restore();
+        } catch (IOException | ClassNotFoundException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to recover the snapshot of " + player.getName(), e);
+        }
+
+        remove(player.getUniqueId());
+    }
+
+    /**
+     * Appends a snapshot to the journal.
+     *
+     * @param snapshot the snapshot.
+     */
+    public void write(PlayerSnapshot snapshot) {
+        enqueue(new Record(PUT, snapshot.getPlayer().getUniqueId(), snapshot));
+    }
+
+    /**
+     * Marks the snapshot of a player as restored.
+     *
+     * @param id the player's unique id.
+     */
+    public void remove(UUID id) {
+        enqueue(new Record(REMOVE, id, null));
+    }
+
+    /**
+     * Gets the number of records waiting to be written.
+     *
+     * @return the queue depth.
+     */
+    public long getQueueDepth() {
+        return queue.size();
+    }
+
+    private synchronized void enqueue(Record record) {
+        // Without a journal to drain to, records would only pile up.
+        if (!open) {
+            return;
+        }
+
+        queue.add(record);
+        if (!drainScheduled && !executor.isShutdown()) {
+            drainScheduled = true;
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Appends every queued record, then syncs the journal to disk once.
+     */
+    private void drain() {
+        synchronized (this) {
+            drainScheduled = false;
+        }
+
+        if (output == null || queue.isEmpty()) {
+            return;
+        }
+
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+            Record record;
+            while ((record = queue.poll()) != null) {
+                writeRecord(out, record.type, record.id, record.snapshot == null ? null : encode(record.snapshot));
+            }
+            out.flush();
+            output.getFD().sync();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to write to the snapshot journal", e);
+        }
+    }
+
+    /**
+     * Waits for all queued records to be written and closes the journal.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                plugin.getLogger().severe("Timed out waiting for the snapshot journal to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Write anything queued after the final scheduled drain.
+        drain();
+
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to close the snapshot journal", e);
+            }
+            output = null;
+        }
+        open = false;
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, UUID id, byte[] payload) throws IOException {
+        out.writeByte(type);
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+        if (type == PUT) {
+            out.writeInt(payload.length);
+            out.write(payload);
+        }
+    }
+
+    private static byte[] encode(PlayerSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BukkitObjectOutputStream out = new BukkitObjectOutputStream(bytes)) {
+            Location location = snapshot.getLocation();
+            out.writeUTF(location.getWorld().getName());
+            out.writeDouble(location.getX());
+            out.writeDouble(location.getY());
+            out.writeDouble(location.getZ());
+            out.writeFloat(location.getYaw());
+            out.writeFloat(location.getPitch());
+            out.writeUTF(snapshot.getGameMode().name());
+            out.writeObject(snapshot.getItems());
+            out.writeObject(snapshot.getPotionEffects().toArray(new PotionEffect[0]));
+        }
+        return bytes.toByteArray();
+    }
+
+    private PlayerSnapshot decode(Player player, byte[] payload) throws IOException, ClassNotFoundException {
+        try (BukkitObjectInputStream in = new BukkitObjectInputStream(new ByteArrayInputStream(payload))) {
+            World world = plugin.getServer().getWorld(in.readUTF());
+            Location location = new Location(world, in.readDouble(), in.readDouble(), in.readDouble(),
+                    in.readFloat(), in.readFloat());
+            if (world == null) {
+                location = player.getWorld().getSpawnLocation();
+            }
+            GameMode gameMode = GameMode.valueOf(in.readUTF());
+            ItemStack[] items = (ItemStack[]) in.readObject();
+            PotionEffect[] potionEffects = (PotionEffect[]) in.readObject();
+            return new PlayerSnapshot(player, location, items, ImmutableList.copyOf(potionEffects), gameMode);
+        }
+    }
+
+    /**
+     * A journal record waiting to be written.
+     */
+    private static class Record {
+
+        private final byte type;
+        private final UUID id;
+        private final PlayerSnapshot snapshot;
+
+        private Record(byte type, UUID id, PlayerSnapshot snapshot) {
+            this.type = type;
+            this.id = id;
+            this.snapshot = snapshot;
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.daegonner.lms.command;
 
 import com.daegonner.lms.LastManStandingPlugin;
+import com.daegonner.lms.PersistenceService;
 import com.daegonner.lms.entity.Arena;
 import com.daegonner.lms.entity.ArenaSpawn;
 import com.daegonner.lms.entity.Region;
 import com.daegonner.lms.model.*;
+import com.daegonner.lms.settings.Settings;
+import com.daegonner.lms.task.MetricsTask;
 import com.daegonner.lms.util.DurationUtils;
 import com.sk89q.intake.Command;
 import com.sk89q.intake.Require;
@@ -16,6 +19,8 @@ import org.bukkit.entity.Player;
 
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 public class AdminCommands {
 
@@ -28,7 +33,7 @@ public class AdminCommands {
     @Command(aliases = "start", desc = "Start an LMS event")
     @Require("lms.start")
     public void start(CommandSender sender) {
-        if (plugin.getGameTask().hasLobby() || plugin.getGameTask().hasLobby()) {
+        if (!plugin.getGameTask().canCreateLobby()) {
             sender.sendMessage(plugin.getSettings().getGameRunningMessage());
             return;
         }
@@ -39,20 +44,18 @@ public class AdminCommands {
     @Command(aliases = "stop", desc = "Stop an LMS event")
     @Require("lms.stop")
     public void stop(CommandSender sender) {
-        if (plugin.getGameTask().hasGame()) {
-            plugin.getGameTask().getGame().stop();
-        }
-
-        if (plugin.getGameTask().hasLobby()) {
-            plugin.getGameTask().closeLobby();
-        }
+        plugin.getGameTask().stopGames();
+        plugin.getGameTask().closeLobbies();
     }
 
     @Command(aliases = "reload", desc = "Reload the configuration")
     @Require("lms.reload")
     public void reload(CommandSender sender) {
-        plugin.setupSettings();
-        sender.sendMessage(plugin.getSettings().getReloadMessage());
+        // Load the settings in the background, keeping the current settings on failure.
+        plugin.getSettingsReloader().reload(() -> sender.sendMessage(plugin.getSettings().getReloadMessage()), e -> {
+            plugin.getLogger().log(Level.SEVERE, "Failed to reload the configuration", e);
+            sender.sendMessage(plugin.getSettings().getReloadFailedMessage());
+        });
     }
 
     @Command(aliases = "create", usage = "<name>", desc = "Create a new arena")
@@ -64,8 +67,14 @@ public class AdminCommands {
             return;
         }
 
+        // Disallow creating arenas until it is known which names are taken.
+        if (!plugin.getArenaManager().isReady()) {
+            sender.sendMessage(plugin.getSettings().getArenasLoadingMessage());
+            return;
+        }
+
         // Disallow creating arenas of the same name.
-        if (plugin.getArenaManager().getArenas().containsKey(name.toLowerCase())) {
+        if (plugin.getArenaManager().hasArena(name)) {
             sender.sendMessage(plugin.getSettings().getArenaAlreadyExistsMessage());
             return;
         }
@@ -77,29 +86,33 @@ public class AdminCommands {
         }
 
         Arena arena = new Arena(name, region.get());
-        plugin.getArenaManager().getArenas().put(name.toLowerCase(), arena);
-
-        // Save arena to the database and send confirmation message asynchronously.
-        plugin.getExecutorService().execute(() -> {
-            ArenaModel.of(plugin, arena);
-            sender.sendMessage(plugin.getSettings().getArenaCreatedMessage().replace("{name}", name));
+        plugin.getArenaManager().addArena(arena);
+
+        // Save arena to the database asynchronously, then record its id and send confirmation message.
+        plugin.getPersistenceService().execute(() -> plugin.getStorage().createArena(arena), id -> {
+            plugin.getArenaManager().setId(arena, id);
+            sender.sendMessage(plugin.getSettings().getArenaCreatedMessage().render("name", name));
+        }, e -> {
+            // Forget the arena which was never saved.
+            plugin.getArenaManager().removeArena(arena);
+            failed(sender).accept(e);
         });
     }
 
     @Command(aliases = "delete", usage = "<arena>", desc = "Delete an arena")
     @Require("lms.delete")
     public void delete(CommandSender sender, Arena arena) {
-        // Asynchronously delete arena from the database.
-        plugin.getExecutorService().execute(() -> {
-            ArenaModel model = ArenaModel.of(plugin, arena);
-            plugin.getDatabase().delete(model);
+        if (!isStored(sender, arena)) {
+            return;
+        }
 
+        // Asynchronously delete arena from the database.
+        int id = arena.getId();
+        plugin.getPersistenceService().execute(() -> plugin.getStorage().deleteArena(id), () -> {
             // Delete arena locally through the server thread.
-            plugin.getServer().getScheduler().runTask(plugin, () -> {
-                plugin.getArenaManager().getArenas().remove(arena.getName().toLowerCase());
-                sender.sendMessage(plugin.getSettings().getArenaDeletedMessage());
-            });
-        });
+            plugin.getArenaManager().removeArena(arena);
+            sender.sendMessage(plugin.getSettings().getArenaDeletedMessage());
+        }, failed(sender));
     }
 
     @Command(aliases = "rename", usage = "<arena> <name>", desc = "Rename an arena")
@@ -112,27 +125,28 @@ public class AdminCommands {
         }
 
         // Disallow renaming arenas to the same name, unless modifying case.
-        if (plugin.getArenaManager().getArenas().containsKey(name.toLowerCase()) &&
-                !name.equalsIgnoreCase(arena.getName())) {
+        if (plugin.getArenaManager().hasArena(name) && !name.equalsIgnoreCase(arena.getName())) {
             sender.sendMessage(plugin.getSettings().getArenaAlreadyExistsMessage());
             return;
         }
 
-        // Remove the arena from the arena manager.
-        plugin.getArenaManager().getArenas().remove(arena.getName().toLowerCase());
-        plugin.getArenaManager().getArenas().put(name.toLowerCase(), arena);
+        if (!isStored(sender, arena)) {
+            return;
+        }
+
+        // Move the arena to its new name in the arena manager.
+        plugin.getArenaManager().renameArena(arena, name);
 
         // Save arena to the database asynchronously.
-        plugin.getExecutorService().execute(() -> {
-            ArenaModel model = ArenaModel.of(plugin, arena);
-            model.setName(name);
-            plugin.getDatabase().save(model);
-
+        int id = arena.getId();
+        plugin.getPersistenceService().execute(() -> plugin.getStorage().renameArena(id, name), () -> {
             // Modify the arena name and send confirmation message on the server thread.
-            plugin.getServer().getScheduler().runTask(plugin, () -> {
-                arena.setName(name);
-                sender.sendMessage(plugin.getSettings().getArenaRenamedMessage().replace("{name}", name));
-            });
+            plugin.getArenaManager().setName(arena, name);
+            sender.sendMessage(plugin.getSettings().getArenaRenamedMessage().render("name", name));
+        }, e -> {
+            // Release the name which was never saved.
+            plugin.getArenaManager().cancelRename(arena, name);
+            failed(sender).accept(e);
         });
     }
 
@@ -142,24 +156,23 @@ public class AdminCommands {
         // Calculate when the next lobby should run,
         long nextLobby = TimeUnit.SECONDS.toMillis(seconds) + System.currentTimeMillis();
 
-        // Asynchronously update the database with the new time.
-        plugin.getExecutorService().execute(() -> {
-            LobbyScheduleModel model = LobbyScheduleModel.of(plugin);
-            model.setNextLobby(nextLobby);
-            plugin.getDatabase().save(model);
-
+        // Asynchronously update the database with the new time, replacing any pending update.
+        plugin.getPersistenceService().update(LobbyScheduleModel.class,
+                () -> plugin.getStorage().saveNextLobby(nextLobby), () -> {
             // Locally update the new time on the server thread.
-            plugin.getServer().getScheduler().runTask(plugin, () -> {
-                plugin.getGameTask().setNextLobby(nextLobby);
-                sender.sendMessage(plugin.getSettings().getLobbyScheduledMessage()
-                        .replace("{time}", DurationUtils.format(seconds)));
-            });
-        });
+            plugin.getGameTask().setNextLobby(nextLobby);
+            sender.sendMessage(plugin.getSettings().getLobbyScheduledMessage()
+                    .render("time", DurationUtils.format(seconds)));
+        }, failed(sender));
     }
 
     @Command(aliases = "setarea", usage = "<area>", desc = "Set the area of an arena with WorldEdit selection")
     @Require("lms.setarea")
     public void setarea(CommandSender sender, Arena arena) {
+        if (!isStored(sender, arena)) {
+            return;
+        }
+
         // Do nothing if sender has not selected a region.
         Optional<Region> regionOptional = getRegion(sender);
         if (!regionOptional.isPresent()) {
@@ -168,53 +181,59 @@ public class AdminCommands {
 
         Region region = regionOptional.get();
 
-        // Update and save the region to the database asynchronously.
-        plugin.getExecutorService().execute(() -> {
-            RegionModel regionModel = RegionModel.of(plugin, arena.getRegion());
-            regionModel.setMax(BlockPosModel.of(plugin, region.getMax()));
-            regionModel.setMin(BlockPosModel.of(plugin, region.getMin()));
-            plugin.getDatabase().save(regionModel);
-
+        // Update and save the region to the database asynchronously, replacing any pending update.
+        int id = arena.getId();
+        plugin.getPersistenceService().update(PersistenceService.key(RegionModel.class, arena),
+                () -> plugin.getStorage().setRegion(id, region), () -> {
             // Update local region and send confirmation message on the main server thread.
-            plugin.getServer().getScheduler().runTask(plugin, () -> {
-                arena.getRegion().setPoints(region.getMax(), region.getMin());
-                sender.sendMessage(plugin.getSettings().getArenaRegionUpdatedMessage());
-            });
-        });
+            plugin.getArenaManager().setRegion(arena, region.getMax(), region.getMin());
+            sender.sendMessage(plugin.getSettings().getArenaRegionUpdatedMessage());
+        }, failed(sender));
     }
 
-    @Command(aliases = "addspawn", usage = "<arena>", desc = "Adds a spawn to an arena")
+    @Command(aliases = "addspawn", usage = "[arena]", desc = "Adds a spawn to an arena")
     @Require("lms.addspawn")
-    public void addspawn(CommandSender sender, Arena arena) {
+    public void addspawn(CommandSender sender, @com.sk89q.intake.parametric.annotation.Optional Arena arena) {
         // Disallow non players to set arena spawns.
         if (!(sender instanceof Player)) {
             sender.sendMessage(plugin.getSettings().getPlayerOnlyCommandMessage());
             return;
         }
 
-        // Disallow spawns outside the arena.
+        // Default to the arena the player is standing in, and disallow spawns outside the arena.
         Player player = (Player) sender;
-        if (!arena.getRegion().isInside(player.getLocation())) {
+        Arena target = arena != null ? arena : plugin.getArenaManager().findArenaAt(player.getLocation()).orElse(null);
+        if (target == null || !target.getRegion().isInside(player.getLocation())) {
             sender.sendMessage(plugin.getSettings().getArenaLocationInvalidMessage());
             return;
         }
 
-        // Asynchronously create and save an arena spawn to the database.
-        plugin.getExecutorService().execute(() -> {
-            ArenaSpawn spawn = ArenaSpawn.of(player.getLocation());
-            ArenaSpawnModel.of(plugin, arena, spawn);
+        if (!isStored(sender, target)) {
+            return;
+        }
 
+        // Asynchronously create and save an arena spawn to the database.
+        int id = target.getId();
+        ArenaSpawn spawn = ArenaSpawn.of(player.getLocation());
+        plugin.getPersistenceService().execute(() -> plugin.getStorage().addSpawn(id, spawn), () -> {
             // Add the spawn to the arena and send confirmation message on the server thread.
-            plugin.getServer().getScheduler().runTask(plugin, () -> {
-                arena.getSpawns().add(spawn);
-                player.sendMessage(plugin.getSettings().getArenaSpawnCreatedMessage());
-            });
-        });
+            target.getSpawns().add(spawn);
+            player.sendMessage(plugin.getSettings().getArenaSpawnCreatedMessage());
+        }, failed(sender));
     }
 
     @Command(aliases = "delspawn", usage = "<arena> <spawn id>", desc = "Deletes a spawn from an arena")
     @Require("lms.delspawn")
     public void delspawn(CommandSender sender, Arena arena, Integer spawnId) {
+        if (!isStored(sender, arena)) {
+            return;
+        }
+
+        // Spawn ids refer to the loaded spawns, so load them first.
+        plugin.getArenaManager().loadSpawns(arena, () -> deleteSpawn(sender, arena, spawnId));
+    }
+
+    private void deleteSpawn(CommandSender sender, Arena arena, int spawnId) {
         // Disallow deleting invalid spawns.
         if (arena.getSpawns().size() < spawnId--) {
             sender.sendMessage(plugin.getSettings().getArenaSpawnInvalidMessage());
@@ -222,14 +241,60 @@ public class AdminCommands {
         }
 
         // Locally remove the arena spawn.
-        ArenaSpawn spawn = arena.getSpawns().remove((int) spawnId);
+        int index = spawnId;
+        ArenaSpawn spawn = arena.getSpawns().remove(index);
 
         // Asynchronously delete spawn from the database.
-        plugin.getExecutorService().execute(() -> {
-            ArenaSpawnModel spawnModel = ArenaSpawnModel.of(plugin, arena, spawn);
-            plugin.getDatabase().delete(spawnModel);
-            sender.sendMessage(plugin.getSettings().getArenaSpawnDeletedMessage());
-        });
+        int id = arena.getId();
+        plugin.getPersistenceService().execute(() -> plugin.getStorage().removeSpawn(id, spawn),
+                () -> sender.sendMessage(plugin.getSettings().getArenaSpawnDeletedMessage()), e -> {
+                    // Put back the spawn which is still saved.
+                    arena.getSpawns().add(Math.min(index, arena.getSpawns().size()), spawn);
+                    failed(sender).accept(e);
+                });
+    }
+
+    /**
+     * Checks if an arena has been stored, as changes are saved by the id it
+     * is stored under, telling the sender to try again later if not.
+     *
+     * @param sender the sender.
+     * @param arena  the arena.
+     * @return {@code true} if the arena is stored.
+     */
+    private boolean isStored(CommandSender sender, Arena arena) {
+        if (arena.getId() == 0) {
+            sender.sendMessage(plugin.getSettings().getArenaSavingMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates a handler telling a sender their change could not be saved,
+     * the failure itself is logged by the persistence service.
+     *
+     * @param sender the sender.
+     * @return the handler.
+     */
+    private Consumer<Exception> failed(CommandSender sender) {
+        return e -> sender.sendMessage(plugin.getSettings().getStorageFailedMessage());
+    }
+
+    @Command(aliases = "metrics", desc = "View LMS performance metrics")
+    @Require("lms.metrics")
+    public void metrics(CommandSender sender) {
+        Settings settings = plugin.getSettings();
+        if (!plugin.getMetrics().isEnabled()) {
+            sender.sendMessage(settings.getMetricsDisabledMessage());
+            return;
+        }
+
+        sender.sendMessage(settings.getMetricsHeaderMessage());
+        plugin.getMetrics().snapshot().forEach((timer, snapshot) -> sender.sendMessage(
+                settings.getMetricsTimerMessage().render("timer", MetricsTask.format(timer, snapshot))));
+        plugin.getMetrics().sampleGauges().forEach((name, value) -> sender.sendMessage(
+                settings.getMetricsGaugeMessage().render("name", name, "value", value)));
     }
 
     private Optional<Region> getRegion(CommandSender sender) {
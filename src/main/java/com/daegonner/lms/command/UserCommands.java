@@ -7,10 +7,10 @@ import com.daegonner.lms.entity.Game;
 import com.daegonner.lms.entity.Lobby;
 import com.sk89q.intake.Command;
 import com.sk89q.intake.Require;
-import com.sk89q.intake.parametric.annotation.Optional;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.Optional;
 import java.util.function.Supplier;
 
 public class UserCommands {
@@ -21,28 +21,34 @@ public class UserCommands {
         this.plugin = plugin;
     }
 
-    @Command(aliases = "join", desc = "Join the lobby")
+    @Command(aliases = "join", usage = "[lobby]", desc = "Join the lobby")
     @Require("lms.join")
-    public void join(CommandSender sender) {
+    public void join(CommandSender sender, @com.sk89q.intake.parametric.annotation.Optional Integer lobbyId) {
         if (!(sender instanceof Player)) {
             message(sender, plugin.getSettings().getPlayerOnlyCommandMessage());
             return;
         }
 
-        if (!plugin.getGameTask().hasLobby()) {
+        Optional<Lobby> lobby = lobbyId == null ?
+                plugin.getGameTask().getDefaultLobby() : plugin.getGameTask().getLobby(lobbyId);
+
+        if (!lobby.isPresent()) {
             message(sender, plugin.getSettings().getLobbyNonExistentMessage());
             return;
         }
 
         Player player = (Player) sender;
-        Lobby lobby = plugin.getGameTask().getLobby();
 
-        if (lobby.getPlayerQueue().contains(player)) {
+        if (plugin.getGameTask().getGame(player).isPresent()) {
+            message(player, plugin.getSettings().getGameAlreadyJoinedMessage());
+            return;
+        }
+
+        if (!plugin.getGameTask().joinLobby(player, lobby.get())) {
             player.sendMessage(plugin.getSettings().getLobbyAlreadyJoinedMessage());
             return;
         }
 
-        lobby.getPlayerQueue().add(player);
         message(sender, plugin.getSettings().getLobbyJoinedMessage());
     }
 
@@ -55,71 +61,73 @@ public class UserCommands {
         }
 
         Player player = (Player) sender;
+        Optional<Game> game = plugin.getGameTask().getGame(player);
 
-        if (plugin.getGameTask().hasGame()) {
-            if (plugin.getGameTask().getGame().exit(player)) {
-                message(player, plugin.getSettings().getGameExitMessage());
-            } else {
-                message(player, plugin.getSettings().getGameExitFailedMessage());
-            }
+        if (game.isPresent() && game.get().exit(player)) {
+            message(player, plugin.getSettings().getGameExitMessage());
             return;
         }
 
-        if (plugin.getGameTask().hasLobby()) {
-            if (plugin.getGameTask().getLobby().getPlayerQueue().remove(player)) {
-                message(player, plugin.getSettings().getGameExitMessage());
-            } else {
-                message(player, plugin.getSettings().getGameExitFailedMessage());
-            }
+        if (plugin.getGameTask().quitLobby(player)) {
+            message(player, plugin.getSettings().getGameExitMessage());
             return;
         }
 
         message(player, plugin.getSettings().getGameExitFailedMessage());
     }
 
-    @Command(aliases = "spectate", desc = "Spectate the game")
+    @Command(aliases = "spectate", usage = "[arena]", desc = "Spectate the game")
     @Require("lms.spectate")
-    public void spectate(CommandSender sender) {
+    public void spectate(CommandSender sender, @com.sk89q.intake.parametric.annotation.Optional Arena arena) {
         if (!(sender instanceof Player)) {
             message(sender, plugin.getSettings().getPlayerOnlyCommandMessage());
             return;
         }
 
-        if (!plugin.getGameTask().hasGame()) {
-            message(sender, plugin.getSettings().getGameNonExistentMessage());
+        Player player = (Player) sender;
+        Optional<Game> current = plugin.getGameTask().getGame(player);
+
+        if (current.isPresent() && current.get().getSpectators().contains(player)) {
+            current.get().exit(player);
+            message(player, plugin.getSettings().getGameExitMessage());
             return;
         }
 
-        Player player = (Player) sender;
-        Game game = plugin.getGameTask().getGame();
-        if (game.getSpectators().contains(player)) {
+        if (current.isPresent()) {
+            Game game = current.get();
             game.exit(player);
             message(player, plugin.getSettings().getGameExitMessage());
+            if (!game.isFinished()) {
+                game.addSpectator(player);
+                message(player, plugin.getSettings().getGameSpectateMessage());
+            }
             return;
         }
 
-        if (game.getParticipants().contains(player)) {
-            game.exit(player);
-            message(player, plugin.getSettings().getGameExitMessage());
-            game.addSpectator(player);
-            message(player, plugin.getSettings().getGameSpectateMessage());
+        Optional<Game> game = arena == null ?
+                plugin.getGameTask().getDefaultGame() : plugin.getGameTask().getGame(arena);
+
+        if (!game.isPresent()) {
+            message(sender, plugin.getSettings().getGameNonExistentMessage());
             return;
         }
 
-        game.addSpectator(player);
+        // A spectator must not also be started in a game by their lobby.
+        plugin.getGameTask().quitLobby(player);
+        game.get().addSpectator(player);
         message(player, plugin.getSettings().getGameSpectateMessage());
     }
 
     @Command(aliases = "list", desc = "List all arenas")
     @Require("lms.list")
-    public void list(CommandSender sender, @Optional Integer page) {
+    public void list(CommandSender sender, @com.sk89q.intake.parametric.annotation.Optional Integer page) {
         message(sender, plugin.getSettings().getArenaListHeaderMessage());
         int i = 0;
         for (Arena arena : plugin.getArenaManager().getArenas().values()) {
             i++;
-            message(sender, plugin.getSettings().getArenaListMessage()
-                    .replace("{id}", String.valueOf(i))
-                    .replace("{arena}", arena.getName()));
+            message(sender, plugin.getSettings().getArenaListMessage().render(
+                    "id", i,
+                    "arena", arena.getName()));
         }
     }
 
@@ -131,29 +139,32 @@ public class UserCommands {
             int id = 0;
             for (ArenaSpawn spawn : arena.getSpawns()) {
                 id++;
-                target.append(plugin.getSettings().getArenaInfoSpawnMessage()
-                        .replace("{id}", String.valueOf(id))
-                        .replace("{x}", String.valueOf((int) spawn.getX()))
-                        .replace("{y}", String.valueOf((int) spawn.getY()))
-                        .replace("{z}", String.valueOf((int) spawn.getZ()))
-                        .replace("{yaw}", String.valueOf((int) spawn.getYaw()))
-                        .replace("{pitch}", String.valueOf((int) spawn.getPitch()))
-                );
+                target.append(plugin.getSettings().getArenaInfoSpawnMessage().render(
+                        "id", id,
+                        "x", (int) spawn.getX(),
+                        "y", (int) spawn.getY(),
+                        "z", (int) spawn.getZ(),
+                        "yaw", (int) spawn.getYaw(),
+                        "pitch", (int) spawn.getPitch()
+                ));
                 target.append("\n");
             }
             return target.toString();
         };
-        message(sender, plugin.getSettings().getArenaInfoMessage()
-                .replace("{arena}", arena.getName())
-                .replace("{world}", arena.getRegion().getMax().getWorld().getName())
-                .replace("{minX}", String.valueOf(arena.getRegion().getMin().getX()))
-                .replace("{minY}", String.valueOf(arena.getRegion().getMin().getY()))
-                .replace("{minZ}", String.valueOf(arena.getRegion().getMin().getZ()))
-                .replace("{maxX}", String.valueOf(arena.getRegion().getMax().getX()))
-                .replace("{maxY}", String.valueOf(arena.getRegion().getMax().getY()))
-                .replace("{maxZ}", String.valueOf(arena.getRegion().getMax().getZ()))
-                .replace("{spawns}", spawns.get())
-        );
+
+        // Reply once the spawns of a lazily loaded arena are known.
+        plugin.getArenaManager().loadSpawns(arena, () ->
+                message(sender, plugin.getSettings().getArenaInfoMessage().render(
+                        "arena", arena.getName(),
+                        "world", arena.getRegion().getMax().getWorld().getName(),
+                        "minX", arena.getRegion().getMin().getX(),
+                        "minY", arena.getRegion().getMin().getY(),
+                        "minZ", arena.getRegion().getMin().getZ(),
+                        "maxX", arena.getRegion().getMax().getX(),
+                        "maxY", arena.getRegion().getMax().getY(),
+                        "maxZ", arena.getRegion().getMax().getZ(),
+                        "spawns", spawns.get()
+                )));
     }
 
     @Command(aliases = "vote", desc = "Vote to play an arena while in lobby")
@@ -170,14 +181,17 @@ public class UserCommands {
         }
 
         Player player = (Player) sender;
-        Lobby lobby = plugin.getGameTask().getLobby();
+        Optional<Lobby> lobby = plugin.getGameTask().getLobby(player);
 
-        if (!lobby.getPlayerQueue().contains(player)) {
+        if (!lobby.isPresent()) {
             message(sender, plugin.getSettings().getLobbyNotJoinedMessage());
             return;
         }
 
-        lobby.getArenaVotes().put(player, arena);
+        lobby.get().vote(player, arena);
+
+        // Start loading the spawns early in case the arena wins the vote.
+        plugin.getArenaManager().loadSpawns(arena, null);
     }
 
     private void message(CommandSender sender, String msg) {
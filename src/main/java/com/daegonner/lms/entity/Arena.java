@@ -15,12 +15,32 @@ public class Arena {
     private final Region region;
     private final List<ArenaSpawn> spawns = new ArrayList<>();
     private String name;
+    private int id;
+    private boolean spawnsLoaded = true;
 
     public Arena(String name, Region region) {
         this.name = name;
         this.region = region;
     }
 
+    /**
+     * Gets the id this arena is stored under.
+     *
+     * @return the id, or {@code 0} if not yet stored.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id this arena is stored under.
+     *
+     * @param id the id.
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
     /**
      * Gets the region.
      *
@@ -39,6 +59,25 @@ public class Arena {
         return spawns;
     }
 
+    /**
+     * Checks if the spawns have been loaded. Arenas loaded lazily only know
+     * their spawns once first used.
+     *
+     * @return {@code true} if the spawns are loaded.
+     */
+    public boolean isSpawnsLoaded() {
+        return spawnsLoaded;
+    }
+
+    /**
+     * Sets if the spawns have been loaded.
+     *
+     * @param spawnsLoaded {@code true} if the spawns are loaded.
+     */
+    public void setSpawnsLoaded(boolean spawnsLoaded) {
+        this.spawnsLoaded = spawnsLoaded;
+    }
+
     /**
      * Gets the name.
      *
@@ -78,13 +117,15 @@ public class Arena {
 
     @Override
     public int hashCode() {
-        return Objects.hash(region, spawns, name);
+        // Spawns are left out as they change while arenas are used as keys.
+        return Objects.hash(region, name);
     }
 
     @Override
     public String toString() {
         return "Arena{" +
-                "region=" + region +
+                "id=" + id +
+                ", region=" + region +
                 ", spawns=" + spawns +
                 ", name='" + name + '\'' +
                 '}';
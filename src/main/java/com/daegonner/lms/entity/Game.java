@@ -1,14 +1,15 @@
 package com.daegonner.lms.entity;
 
 import com.daegonner.lms.LastManStandingPlugin;
+import com.daegonner.lms.Messenger;
+import com.daegonner.lms.metrics.Metrics;
 import com.daegonner.lms.settings.ArenaSettings;
 import org.bukkit.GameMode;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.PlayerInventory;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Contains all data for an active LMS game.
@@ -17,14 +18,23 @@ public class Game {
 
     private final LastManStandingPlugin plugin;
     private final Arena arena;
-    private final Set<Player> participants;
+    private final List<Player> entrants;
+    private final Set<Player> participants = new HashSet<>();
+    private final Deque<Player> pending;
     private final Set<Player> spectators = new HashSet<>();
     private final Map<Player, PlayerSnapshot> snapshots = new HashMap<>();
+    private final Location cachedLocation = new Location(null, 0, 0, 0);
+    private int ticksSinceSweep;
+    private boolean finished;
+    private ArenaSettings settings;
+    private long startTime;
+    private int startTicks;
 
-    public Game(LastManStandingPlugin plugin, Arena arena, Set<Player> participants) {
+    public Game(LastManStandingPlugin plugin, Arena arena, Set<Player> players) {
         this.plugin = plugin;
         this.arena = arena;
-        this.participants = participants;
+        this.entrants = new ArrayList<>(players);
+        this.pending = new ArrayDeque<>(players);
     }
 
     /**
@@ -45,6 +55,24 @@ public class Game {
         return participants;
     }
 
+    /**
+     * Gets the players still waiting to be teleported into the arena.
+     *
+     * @return the pending players.
+     */
+    public Collection<Player> getPending() {
+        return pending;
+    }
+
+    /**
+     * Checks if players are still being teleported into the arena.
+     *
+     * @return {@code true} if the game is still starting.
+     */
+    public boolean isStarting() {
+        return !pending.isEmpty();
+    }
+
     /**
      * Gets the spectators.
      *
@@ -64,11 +92,57 @@ public class Game {
     }
 
     /**
-     * Pulses the current game.
+     * Checks if the game has finished, either by a winner being found or by
+     * being stopped.
+     *
+     * @return {@code true} if the game has finished.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Pulses the current game. Players are checked as they move, so the full
+     * boundary sweep only runs once every configured sweep interval as a
+     * safety net for any movement not reported through events.
      */
     public void pulse() {
+        if (isStarting()) {
+            startBatch();
+            return;
+        }
+
+        if (finished || ++ticksSinceSweep < plugin.getSettings().getBoundarySweepInterval()) {
+            return;
+        }
+
+        ticksSinceSweep = 0;
         checkPlayers(participants.iterator(), true);
-        checkPlayers(spectators.iterator(), false);
+
+        if (!finished) {
+            checkPlayers(spectators.iterator(), false);
+        }
+    }
+
+    /**
+     * Checks if a player in this game is still inside the arena after moving.
+     * In the event they are not, they will be restored and removed from the
+     * game, exactly as they would be by a full boundary sweep.
+     *
+     * @param player   the player that moved.
+     * @param location the location they moved to.
+     */
+    public void checkPlayer(Player player, Location location) {
+        if (arena.getRegion().isInside(location)) {
+            return;
+        }
+
+        if (participants.remove(player)) {
+            restore(player);
+            searchWinner();
+        } else if (spectators.remove(player)) {
+            restore(player);
+        }
     }
 
     /**
@@ -80,10 +154,12 @@ public class Game {
      * @param searchWinner search for the winner if removed from the game.
      */
     private void checkPlayers(Iterator<Player> players, boolean searchWinner) {
+        Region region = arena.getRegion();
         Player player;
-        while (players.hasNext()) {
+        while (!finished && players.hasNext()) {
             player = players.next();
-            if (!arena.getRegion().isInside(player.getLocation())) {
+            // Reuse a single location to avoid allocating one per player per tick.
+            if (!region.isInside(player.getLocation(cachedLocation))) {
                 players.remove();
                 restore(player);
                 if (searchWinner) {
@@ -94,59 +170,56 @@ public class Game {
     }
 
     /**
-     * Initializes the games state, managing player locations and inventories.
+     * Initializes the games state. Players are teleported in and given their
+     * kits in batches over the following pulses, rather than all at once.
      *
      * @param settings the settings for this specific arena.
      */
     public void start(ArenaSettings settings) {
-        snapshotParticipants();
-        teleportParticipants();
-        loadKits(settings);
+        this.settings = settings;
+        startTime = System.nanoTime();
+        startBatch();
     }
 
     /**
-     * Stores the snapshot of every participant in the game.
+     * Snapshots, teleports and kits the next batch of pending players. Once
+     * every player is in, reports how long the start took.
      */
-    private void snapshotParticipants() {
-        participants.forEach(this::snapshotParticipant);
-    }
+    private void startBatch() {
+        long batchStart = plugin.getMetrics().start();
+        startTicks++;
+        int batch = plugin.getSettings().getStartBatchSize();
+        while (batch-- > 0 && !pending.isEmpty()) {
+            Player player = pending.poll();
+            snapshot(player);
+            participants.add(player);
+            player.teleport(arena.getRandomSpawn());
+            plugin.getMessenger().send(player, plugin.getSettings().getGameTeleportedMessage());
+            loadKit(player);
+        }
+        plugin.getMetrics().stop(Metrics.Timer.GAME_START, batchStart);
 
-    /**
-     * Stores a players snapshot.
-     *
-     * @param player the player.
-     */
-    private void snapshotParticipant(Player player) {
-        snapshots.put(player, PlayerSnapshot.of(player));
-    }
+        if (pending.isEmpty()) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            plugin.getLogger().info("Started game in arena " + arena.getName() + " with " + participants.size() +
+                    " players in " + elapsed + "ms over " + startTicks + " ticks");
 
-    /**
-     * Teleports all participants to the arena.
-     */
-    private void teleportParticipants() {
-        for (Player player : participants) {
-            player.teleport(arena.getRandomSpawn());
+            // Players may have left while the game was starting.
+            searchWinner();
         }
     }
 
     /**
-     * Loads all player kits.
+     * Loads a players kit.
      *
-     * @param settings the arena specific settings.
+     * @param player the player.
      */
-    private void loadKits(ArenaSettings settings) {
-        ItemStack[] contents = settings.getInventory().toArray(new ItemStack[settings.getInventory().size()]);
-        for (Player player : participants) {
-            player.getActivePotionEffects().clear();
-            PlayerInventory inventory = player.getInventory();
-            inventory.clear();
-            inventory.setContents(contents);
-            inventory.setHelmet(settings.getHeadArmour());
-            inventory.setChestplate(settings.getBodyArmour());
-            inventory.setLeggings(settings.getLegArmour());
-            inventory.setBoots(settings.getLegArmour());
-            player.setGameMode(GameMode.ADVENTURE);
-        }
+    private void loadKit(Player player) {
+        long start = plugin.getMetrics().start();
+        player.getActivePotionEffects().forEach(effect -> player.removePotionEffect(effect.getType()));
+        settings.getKit().apply(player.getInventory());
+        player.setGameMode(GameMode.ADVENTURE);
+        plugin.getMetrics().stop(Metrics.Timer.KIT, start);
     }
 
     /**
@@ -155,6 +228,11 @@ public class Game {
      * @param player the player.
      */
     public void playerDeath(Player player) {
+        if (pending.remove(player)) {
+            plugin.getGameTask().unindexPlayer(player);
+            return;
+        }
+
         if (participants.remove(player) || spectators.remove(player)) {
             player.spigot().respawn();
             restore(player);
@@ -163,7 +241,9 @@ public class Game {
     }
 
     public void addSpectator(Player player) {
-        snapshots.put(player, PlayerSnapshot.of(player));
+        snapshot(player);
+        spectators.add(player);
+        plugin.getGameTask().indexPlayer(player, this);
         player.getActivePotionEffects().clear();
         player.getInventory().clear();
         player.setGameMode(GameMode.SPECTATOR);
@@ -171,15 +251,28 @@ public class Game {
     }
 
     public void stop() {
+        List<Player> audience = new ArrayList<>(pending.size() + participants.size() + spectators.size());
+        audience.addAll(pending);
+        audience.addAll(participants);
+        audience.addAll(spectators);
+
+        pending.forEach(plugin.getGameTask()::unindexPlayer);
+        pending.clear();
         participants.forEach(this::restore);
         spectators.forEach(this::restore);
         participants.clear();
         spectators.clear();
-        plugin.getGameTask().setGame(null);
-        broadcast(plugin.getSettings().getGameCancelledMessage());
+        finished = true;
+        plugin.getMessenger().announce(audience, plugin.getSettings().getGameCancelledMessage(),
+                Messenger.Category.GENERAL);
     }
 
     public boolean exit(Player player) {
+        if (pending.remove(player)) {
+            plugin.getGameTask().unindexPlayer(player);
+            return true;
+        }
+
         boolean participant = participants.remove(player);
         boolean spectator = spectators.remove(player);
         if (!participant && !spectator) {
@@ -196,38 +289,45 @@ public class Game {
     }
 
     private void searchWinner() {
-        if (participants.size() != 1) {
+        if (finished || isStarting() || participants.size() != 1) {
             return;
         }
 
         Player winner = participants.iterator().next();
+        participants.clear();
         restore(winner);
-        broadcast(plugin.getSettings().getGameCompleteMessage().replace("{player}", winner.getName()));
-        winner.getInventory().addItem(getRewardCrate()).forEach((amount, stack) ->
+
+        // Everyone who entered or watched the game hears who won, even if they have since been knocked out.
+        List<Player> audience = new ArrayList<>(entrants.size() + spectators.size());
+        audience.addAll(entrants);
+        audience.addAll(spectators);
+        plugin.getMessenger().announce(audience, plugin.getSettings().getGameCompleteMessage()
+                .render("player", winner.getName()), Messenger.Category.GENERAL);
+        winner.getInventory().addItem(plugin.getRewardCrates().create(arena)).forEach((amount, stack) ->
                 winner.getWorld().dropItemNaturally(winner.getLocation(), stack));
+
+        // End the game, freeing the arena for the next lobby.
+        spectators.forEach(this::restore);
+        spectators.clear();
+        finished = true;
     }
 
-    private ItemStack getRewardCrate() {
-        ItemStack crate = plugin.getSettings().getRewardCrate();
-        List<String> lore = crate.getItemMeta().hasLore() ?
-                crate.getItemMeta().getLore() : new ArrayList<>(LastManStandingPlugin.getRewardCrateLore().size());
-        lore.addAll(LastManStandingPlugin.getRewardCrateLore().stream()
-                .map(line -> line.replace("{arena}", arena.getName()))
-                .collect(Collectors.toList()));
-        crate.getItemMeta().setLore(lore);
-        return crate;
+    private void snapshot(Player player) {
+        long start = plugin.getMetrics().start();
+        PlayerSnapshot snapshot = PlayerSnapshot.of(player);
+        snapshots.put(player, snapshot);
+        plugin.getSnapshotJournal().write(snapshot);
+        plugin.getMetrics().stop(Metrics.Timer.SNAPSHOT, start);
     }
 
     public void restore(Player player) {
+        plugin.getGameTask().unindexPlayer(player);
         PlayerSnapshot snapshot = snapshots.remove(player);
         if (snapshot != null) {
+            long start = plugin.getMetrics().start();
             snapshot.restore();
-        }
-    }
-
-    private void broadcast(String msg) {
-        if (!msg.isEmpty()) {
-            plugin.getServer().broadcastMessage(msg);
+            plugin.getSnapshotJournal().remove(player.getUniqueId());
+            plugin.getMetrics().stop(Metrics.Timer.RESTORE, start);
         }
     }
 
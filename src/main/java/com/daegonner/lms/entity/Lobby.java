@@ -9,8 +9,76 @@ import java.util.*;
  */
 public class Lobby {
 
+    private final int id;
+    private final long start;
     private final Set<Player> playerQueue = new HashSet<>();
     private final Map<Player, Arena> arenaVotes = new HashMap<>();
+    private final Map<Arena, Tally> voteTallies = new IdentityHashMap<>();
+    private Optional<Arena> leader = Optional.empty();
+    private int leaderVotes = 0;
+    private long voteSequence = 0;
+    private int lastCountdown = Integer.MAX_VALUE;
+    private Arena preparedArena;
+
+    public Lobby(int id, long start) {
+        this.id = id;
+        this.start = start;
+    }
+
+    /**
+     * Gets the id, unique among all lobbies since the plugin was enabled.
+     *
+     * @return the id.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets when this lobby was created, in epoch millis.
+     *
+     * @return the start time.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the last countdown time announced.
+     *
+     * @return the last countdown.
+     */
+    public int getLastCountdown() {
+        return lastCountdown;
+    }
+
+    /**
+     * Sets the last countdown time announced.
+     *
+     * @param lastCountdown the last countdown.
+     */
+    public void setLastCountdown(int lastCountdown) {
+        this.lastCountdown = lastCountdown;
+    }
+
+    /**
+     * Gets the arena prepared ahead of the countdown ending, used when no
+     * other arena has been voted for by then.
+     *
+     * @return the prepared arena, or {@code null} if not yet prepared.
+     */
+    public Arena getPreparedArena() {
+        return preparedArena;
+    }
+
+    /**
+     * Sets the arena prepared ahead of the countdown ending.
+     *
+     * @param preparedArena the prepared arena.
+     */
+    public void setPreparedArena(Arena preparedArena) {
+        this.preparedArena = preparedArena;
+    }
 
     /**
      * The current queue of players waiting for the game to start.
@@ -22,38 +90,120 @@ public class Lobby {
     }
 
     /**
-     * The total votes for each arena.
+     * The arena each player has voted for.
      *
      * @return the arena votes.
      */
     public Map<Player, Arena> getArenaVotes() {
-        return arenaVotes;
+        return Collections.unmodifiableMap(arenaVotes);
     }
 
-    private Map<Arena, Integer> getVoteTotals() {
-        Map<Arena, Integer> target = new HashMap<>();
-        arenaVotes.forEach((player, arena) -> {
-            Integer count = target.getOrDefault(arena, 0);
-            target.put(arena, count + 1);
-        });
-        return target;
+    /**
+     * Registers a player's vote for an arena, replacing any previous vote.
+     *
+     * @param player the player.
+     * @param arena  the arena.
+     */
+    public void vote(Player player, Arena arena) {
+        Arena previous = arenaVotes.put(player, arena);
+        if (previous == arena) {
+            return;
+        }
+
+        if (previous != null) {
+            retract(previous);
+        }
+
+        Tally tally = voteTallies.computeIfAbsent(arena, a -> new Tally());
+        tally.votes++;
+        tally.since = ++voteSequence;
+
+        // An arena only takes the lead by passing the leader, never by tying.
+        if (tally.votes > leaderVotes) {
+            setLeader(arena, tally.votes);
+        } else if (leader.orElse(null) == arena) {
+            leaderVotes = tally.votes;
+        }
     }
 
     /**
-     * Gets the highest voted arena.
+     * Removes a player's vote, if they have voted.
      *
-     * @return the arena.
+     * @param player the player.
      */
-    public Optional<Arena> getHighestVotedArena() {
-        int voteCount = 0;
+    public void removeVote(Player player) {
+        Arena previous = arenaVotes.remove(player);
+        if (previous != null) {
+            retract(previous);
+        }
+    }
+
+    private void retract(Arena arena) {
+        Tally tally = voteTallies.get(arena);
+        tally.votes--;
+        tally.since = ++voteSequence;
+        if (tally.votes == 0) {
+            voteTallies.remove(arena);
+        }
+
+        if (leader.orElse(null) == arena) {
+            electLeader();
+        }
+    }
+
+    /**
+     * Finds the arena with the most votes, with ties won by the arena that
+     * has held its vote count the longest.
+     */
+    private void electLeader() {
         Arena arena = null;
-        for (Map.Entry<Arena, Integer> entry : getVoteTotals().entrySet()) {
-            if (entry.getValue() > voteCount) {
-                voteCount = entry.getValue();
+        Tally best = null;
+        for (Map.Entry<Arena, Tally> entry : voteTallies.entrySet()) {
+            Tally tally = entry.getValue();
+            if (best == null || tally.votes > best.votes || (tally.votes == best.votes && tally.since < best.since)) {
                 arena = entry.getKey();
+                best = tally;
             }
         }
-        return Optional.ofNullable(arena);
+        setLeader(arena, best == null ? 0 : best.votes);
+    }
+
+    private void setLeader(Arena arena, int votes) {
+        if (leader.orElse(null) != arena) {
+            leader = Optional.ofNullable(arena);
+        }
+        leaderVotes = votes;
+    }
+
+    /**
+     * Gets the number of votes for an arena.
+     *
+     * @param arena the arena.
+     * @return the votes.
+     */
+    public int getVotes(Arena arena) {
+        Tally tally = voteTallies.get(arena);
+        return tally == null ? 0 : tally.votes;
+    }
+
+    /**
+     * Gets the number of votes for the highest voted arena.
+     *
+     * @return the votes.
+     */
+    public int getHighestVotes() {
+        return leaderVotes;
+    }
+
+    /**
+     * Gets the highest voted arena. Ties are won by the arena that has held
+     * its vote count the longest, so the leader only changes once another
+     * arena passes it.
+     *
+     * @return the arena.
+     */
+    public Optional<Arena> getHighestVotedArena() {
+        return leader;
     }
 
     @Override
@@ -61,20 +211,33 @@ public class Lobby {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Lobby lobby = (Lobby) o;
-        return Objects.equals(playerQueue, lobby.playerQueue) &&
+        return id == lobby.id &&
+                start == lobby.start &&
+                Objects.equals(playerQueue, lobby.playerQueue) &&
                 Objects.equals(arenaVotes, lobby.arenaVotes);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(playerQueue, arenaVotes);
+        return Objects.hash(id, start, playerQueue, arenaVotes);
     }
 
     @Override
     public String toString() {
         return "Lobby{" +
-                "playerQueue=" + playerQueue +
+                "id=" + id +
+                ", start=" + start +
+                ", playerQueue=" + playerQueue +
                 ", arenaVotes=" + arenaVotes +
                 '}';
     }
+
+    /**
+     * The votes for one arena, and when that count was reached.
+     */
+    private static class Tally {
+
+        private int votes;
+        private long since;
+    }
 }
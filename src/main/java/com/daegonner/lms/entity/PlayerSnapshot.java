@@ -51,6 +51,10 @@ public class PlayerSnapshot {
         return potionEffects;
     }
 
+    public GameMode getGameMode() {
+        return gameMode;
+    }
+
     public void restore() {
         player.getActivePotionEffects().clear();
         player.addPotionEffects(potionEffects);
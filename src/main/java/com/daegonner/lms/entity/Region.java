@@ -13,6 +13,15 @@ public class Region {
     private BlockPos max;
     private BlockPos min;
 
+    // Primitive bounds used for allocation-free containment checks.
+    private World world;
+    private double lowX;
+    private double lowY;
+    private double lowZ;
+    private double highX;
+    private double highY;
+    private double highZ;
+
     /**
      * Helper method to allow creation of a {@link BlockPos} from two
      * {@link Location} objects.
@@ -86,6 +95,17 @@ public class Region {
         // Set the new locations.
         max = new BlockPos(world, maxX, maxY, maxZ);
         min = new BlockPos(world, minX, minY, minZ);
+
+        // Precompute the exclusive block bounds as coordinates, a block
+        // coordinate is inside when floor(c) > min and floor(c) < max, which
+        // is equivalent to c >= min + 1 and c < max.
+        this.world = world;
+        lowX = minX + 1;
+        lowY = minY + 1;
+        lowZ = minZ + 1;
+        highX = maxX;
+        highY = maxY;
+        highZ = maxZ;
     }
 
     /**
@@ -95,7 +115,24 @@ public class Region {
      * @return {@code true} if the location is inside the region.
      */
     public boolean isInside(Location location) {
-        return isInside(BlockPos.of(location));
+        return isInside(location.getWorld(), location.getX(), location.getY(), location.getZ());
+    }
+
+    /**
+     * Checks if the coordinates in a world are inside the region, without
+     * creating any intermediate objects.
+     *
+     * @param world the world to check.
+     * @param x     the X coordinate.
+     * @param y     the Y coordinate.
+     * @param z     the Z coordinate.
+     * @return {@code true} if the coordinates are inside the region.
+     */
+    public boolean isInside(World world, double x, double y, double z) {
+        return world == this.world &&
+                x >= lowX && x < highX &&
+                y >= lowY && y < highY &&
+                z >= lowZ && z < highZ;
     }
 
     /**
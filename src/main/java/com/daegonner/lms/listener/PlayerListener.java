@@ -1,14 +1,18 @@
 package com.daegonner.lms.listener;
 
 import com.daegonner.lms.LastManStandingPlugin;
-import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.Game;
+import org.bukkit.Location;
 import org.bukkit.block.Chest;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.Optional;
@@ -23,75 +27,66 @@ public class PlayerListener implements Listener {
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void handleDeath(PlayerDeathEvent event) {
-        // Do nothing if there is no LMS game running.
-        if (!plugin.getGameTask().hasGame() ||
-                !plugin.getGameTask().getGame().getParticipants().contains(event.getEntity()) ||
-                !plugin.getGameTask().getGame().getSpectators().contains(event.getEntity())) {
-            return;
-        }
+        // Register the player death on the game they are in, if any.
+        plugin.getGameTask().getGame(event.getEntity()).ifPresent(game -> game.playerDeath(event.getEntity()));
+    }
 
-        // Register the player death on the game.
-        plugin.getGameTask().getGame().playerDeath(event.getEntity());
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handleJoin(PlayerJoinEvent event) {
+        // Restore players who were in a game when the server went down.
+        plugin.getSnapshotJournal().recover(event.getPlayer());
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void handleQuit(PlayerQuitEvent event) {
-        if (plugin.getGameTask().hasGame()) {
-            plugin.getGameTask().getGame().exit(event.getPlayer());
+        plugin.getGameTask().getGame(event.getPlayer()).ifPresent(game -> game.exit(event.getPlayer()));
+        plugin.getGameTask().quitLobby(event.getPlayer());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void handleMove(PlayerMoveEvent event) {
+        // Do nothing if the player is not in an LMS game.
+        Optional<Game> game = plugin.getGameTask().getGame(event.getPlayer());
+        if (!game.isPresent()) {
+            return;
         }
 
-        if (plugin.getGameTask().hasLobby()) {
-            plugin.getGameTask().getLobby().getPlayerQueue().remove(event.getPlayer());
-            plugin.getGameTask().getLobby().getArenaVotes().remove(event.getPlayer());
+        // Only re-check the player once they cross a block boundary.
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (from.getBlockX() == to.getBlockX() &&
+                from.getBlockY() == to.getBlockY() &&
+                from.getBlockZ() == to.getBlockZ() &&
+                from.getWorld() == to.getWorld()) {
+            return;
         }
+
+        game.get().checkPlayer(event.getPlayer(), to);
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void handleTeleport(PlayerTeleportEvent event) {
+        plugin.getGameTask().getGame(event.getPlayer()).ifPresent(game ->
+                game.checkPlayer(event.getPlayer(), event.getTo()));
     }
 
     @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
     public void grantReward(BlockPlaceEvent event) {
-        // Do nothing if the placed item is not a reward crate.
+        // Reject ordinary blocks by material before reading any item meta.
         ItemStack placed = event.getItemInHand();
-        if (placed == null || !isRewardCrate(placed) || !(event.getBlockPlaced().getState() instanceof Chest)) {
+        if (!plugin.getRewardCrates().isCandidate(placed)) {
             return;
         }
 
-        getArena(placed).ifPresent(arena -> {
+        plugin.getRewardCrates().getArena(placed).ifPresent(arena -> {
+            if (!(event.getBlockPlaced().getState() instanceof Chest)) {
+                return;
+            }
+
             Chest chest = (Chest) event.getBlockPlaced().getState();
             plugin.getSettings().getArenaSettings(arena.getName()).getRewards().forEach(reward -> {
                 reward.grant(event.getPlayer(), chest.getInventory());
             });
         });
     }
-
-    /**
-     * Gets the {@link Arena} this crate has been rewarded for.
-     *
-     * @param crate the crate item stack.
-     * @return the arena used.
-     */
-    private Optional<Arena> getArena(ItemStack crate) {
-        if (!crate.hasItemMeta() || !crate.getItemMeta().hasLore()) {
-            return Optional.empty();
-        }
-
-        String arenaLine = LastManStandingPlugin.getRewardCrateLore().get(1).replace("{arena}", "");
-        for (String line : crate.getItemMeta().getLore()) {
-            if (line.startsWith(arenaLine)) {
-                String name = line.substring(arenaLine.length()).toLowerCase();
-                return Optional.ofNullable(plugin.getArenaManager().getArenas().get(name));
-            }
-        }
-
-        return Optional.empty();
-    }
-
-    /**
-     * Checks if an item stack is a reward crate by comparing their lores.
-     *
-     * @param stack the {@link ItemStack} to check.
-     * @return {@code true} if the item is a reward crate.
-     */
-    private boolean isRewardCrate(ItemStack stack) {
-        return stack.hasItemMeta() && stack.getItemMeta().hasLore() &&
-                stack.getItemMeta().getLore().contains(LastManStandingPlugin.getRewardCrateLore().get(0));
-    }
 }
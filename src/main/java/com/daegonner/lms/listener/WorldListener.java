@@ -0,0 +1,37 @@
+package com.daegonner.lms.listener;
+
+import com.daegonner.lms.LastManStandingPlugin;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+public class WorldListener implements Listener {
+
+    private final LastManStandingPlugin plugin;
+
+    public WorldListener(LastManStandingPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.HIGH)
+    public void keepArenaChunks(ChunkUnloadEvent event) {
+        // Keep chunks loaded while an upcoming or running game needs them.
+        if (plugin.getGameTask().getChunkWarmer().isHeld(event.getChunk())) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void bindArenas(WorldLoadEvent event) {
+        // Arenas in worlds loaded after startup become available as they load.
+        plugin.getArenaManager().bindWorld(event.getWorld());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void unbindArenas(WorldUnloadEvent event) {
+        plugin.getArenaManager().unbindWorld(event.getWorld());
+    }
+}
@@ -0,0 +1,159 @@
+package com.daegonner.lms.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size histogram of latencies in microseconds. Values are grouped
+ * into buckets whose width grows with magnitude, keeping the relative error
+ * of any percentile within a few percent across the whole range of values,
+ * in the style of HdrHistogram. Safe to record into from multiple threads.
+ */
+public class LatencyHistogram {
+
+    // Values below SUB_BUCKETS are counted exactly. Every power of two above
+    // that is split into HALF sub-buckets.
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param micros the latency in microseconds.
+     */
+    public void record(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        }
+
+        counts.incrementAndGet(index(micros));
+        count.incrementAndGet();
+        total.addAndGet(micros);
+
+        long current;
+        while (micros > (current = max.get()) && !max.compareAndSet(current, micros)) {
+            // Retry until the maximum is at least this value.
+        }
+    }
+
+    /**
+     * Takes a snapshot of every value recorded.
+     *
+     * @return the snapshot.
+     */
+    public Snapshot snapshot() {
+        long[] target = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            target[i] = counts.get(i);
+        }
+        return new Snapshot(target, count.get(), total.get(), max.get());
+    }
+
+    /**
+     * Takes a snapshot of every value recorded, then clears the histogram.
+     *
+     * @return the snapshot.
+     */
+    public Snapshot snapshotAndReset() {
+        long[] target = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            target[i] = counts.getAndSet(i, 0);
+        }
+        return new Snapshot(target, count.getAndSet(0), total.getAndSet(0), max.getAndSet(0));
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int sub = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF + (sub - HALF);
+    }
+
+    private static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long sub = (index - SUB_BUCKETS) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * The values recorded into a histogram over some period.
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long total, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        /**
+         * Gets the number of values recorded.
+         *
+         * @return the count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the mean of all values recorded.
+         *
+         * @return the mean in microseconds.
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) total / count;
+        }
+
+        /**
+         * Gets the largest value recorded.
+         *
+         * @return the maximum in microseconds.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Gets the value at or below which the given percentage of values
+         * were recorded.
+         *
+         * @param percentile the percentile, from 0 to 100.
+         * @return the value in microseconds.
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            long target = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.daegonner.lms.metrics;
+
+import com.daegonner.lms.LastManStandingPlugin;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Records how long LMS spends on its main operations, along with the depth
+ * of its work queues. While disabled, timing an operation costs no more than
+ * reading the current settings.
+ */
+public class Metrics {
+
+    private final LastManStandingPlugin plugin;
+    private final Map<Timer, LatencyHistogram> histograms = new EnumMap<>(Timer.class);
+    private final Map<String, LongSupplier> gauges = new LinkedHashMap<>();
+
+    public Metrics(LastManStandingPlugin plugin) {
+        this.plugin = plugin;
+        for (Timer timer : Timer.values()) {
+            histograms.put(timer, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Checks if metrics are being recorded.
+     *
+     * @return {@code true} if enabled.
+     */
+    public boolean isEnabled() {
+        return plugin.getSettings().isMetricsEnabled();
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return the start time to pass to {@link #stop(Timer, long)}, or
+     * {@code 0} if metrics are disabled.
+     */
+    public long start() {
+        return isEnabled() ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stops timing an operation, recording its latency.
+     *
+     * @param timer the operation timed.
+     * @param start the value returned by {@link #start()}.
+     */
+    public void stop(Timer timer, long start) {
+        if (start != 0) {
+            histograms.get(timer).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Registers a value to be sampled whenever metrics are reported, such
+     * as the depth of a queue.
+     *
+     * @param name  the name of the value.
+     * @param gauge supplies the current value.
+     */
+    public void registerGauge(String name, LongSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Takes a snapshot of every timer.
+     *
+     * @return the snapshots of each timer.
+     */
+    public Map<Timer, LatencyHistogram.Snapshot> snapshot() {
+        Map<Timer, LatencyHistogram.Snapshot> target = new EnumMap<>(Timer.class);
+        histograms.forEach((timer, histogram) -> target.put(timer, histogram.snapshot()));
+        return target;
+    }
+
+    /**
+     * Takes a snapshot of every timer, then clears them.
+     *
+     * @return the snapshots of each timer.
+     */
+    public Map<Timer, LatencyHistogram.Snapshot> snapshotAndReset() {
+        Map<Timer, LatencyHistogram.Snapshot> target = new EnumMap<>(Timer.class);
+        histograms.forEach((timer, histogram) -> target.put(timer, histogram.snapshotAndReset()));
+        return target;
+    }
+
+    /**
+     * Samples the current value of every gauge.
+     *
+     * @return the gauge values by name.
+     */
+    public Map<String, Long> sampleGauges() {
+        Map<String, Long> target = new LinkedHashMap<>();
+        gauges.forEach((name, gauge) -> target.put(name, gauge.getAsLong()));
+        return target;
+    }
+
+    /**
+     * An operation which is timed.
+     */
+    public enum Timer {
+        GAME_TASK("game-task"),
+        GAME_PULSE("game-pulse"),
+        GAME_START("game-start-batch"),
+        SNAPSHOT("snapshot"),
+        RESTORE("restore"),
+        KIT("kit"),
+        DB_JOB("db-job"),
+        DB_FLUSH("db-flush");
+
+        private final String name;
+
+        Timer(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
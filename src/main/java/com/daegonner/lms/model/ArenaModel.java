@@ -112,7 +112,12 @@ public class ArenaModel implements Model {
      * @return the arena model of the same name.
      */
     public static ArenaModel of(LastManStandingPlugin plugin, Arena arena) {
-        ArenaModel model = plugin.getDatabase()
+        ArenaModel model = plugin.getModelCache().getArena(arena.getName());
+        if (model != null) {
+            return model;
+        }
+
+        model = plugin.getDatabase()
                 .find(ArenaModel.class)
                 .where()
                 .eq("name", arena.getName())
@@ -126,6 +131,27 @@ public class ArenaModel implements Model {
             plugin.getDatabase().save(model);
         }
 
+        plugin.getModelCache().putArena(model);
+        return model;
+    }
+
+    /**
+     * Gets an existing {@link ArenaModel} from the database.
+     *
+     * @param plugin the {@link LastManStandingPlugin} plugin instance.
+     * @param id     the id the arena is stored under.
+     * @return the arena model, or {@code null} if no arena is stored under the id.
+     */
+    public static ArenaModel of(LastManStandingPlugin plugin, int id) {
+        ArenaModel model = plugin.getModelCache().getArena(id);
+        if (model != null) {
+            return model;
+        }
+
+        model = plugin.getDatabase().find(ArenaModel.class, id);
+        if (model != null) {
+            plugin.getModelCache().putArena(model);
+        }
         return model;
     }
 
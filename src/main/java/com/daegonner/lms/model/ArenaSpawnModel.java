@@ -90,9 +90,25 @@ public class ArenaSpawnModel implements Model {
      * @return the arena spawn model of the same position and arena.
      */
     public static ArenaSpawnModel of(LastManStandingPlugin plugin, Arena arena, ArenaSpawn spawn) {
+        return of(plugin, ArenaModel.of(plugin, arena), spawn);
+    }
+
+    /**
+     * Gets or creates a new {@link ArenaSpawnModel} from the database.
+     *
+     * @param plugin     the {@link LastManStandingPlugin} plugin instance.
+     * @param arenaModel the {@link ArenaModel}.
+     * @param spawn      the {@link ArenaSpawn}.
+     * @return the arena spawn model of the same position and arena.
+     */
+    public static ArenaSpawnModel of(LastManStandingPlugin plugin, ArenaModel arenaModel, ArenaSpawn spawn) {
         EntityPosModel entityPos = EntityPosModel.of(plugin, spawn);
-        ArenaModel arenaModel = ArenaModel.of(plugin, arena);
-        ArenaSpawnModel model = plugin.getDatabase()
+        ArenaSpawnModel model = plugin.getModelCache().getArenaSpawn(arenaModel, entityPos);
+        if (model != null) {
+            return model;
+        }
+
+        model = plugin.getDatabase()
                 .find(ArenaSpawnModel.class)
                 .where()
                 .eq("arena", arenaModel)
@@ -106,6 +122,7 @@ public class ArenaSpawnModel implements Model {
             plugin.getDatabase().save(model);
         }
 
+        plugin.getModelCache().putArenaSpawn(arenaModel, model);
         return model;
     }
 
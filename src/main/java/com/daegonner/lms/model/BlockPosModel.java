@@ -131,7 +131,12 @@ public class BlockPosModel implements Model {
      */
     public static BlockPosModel of(LastManStandingPlugin plugin, BlockPos pos) {
         WorldModel world = WorldModel.of(plugin, pos.getWorld().getName());
-        BlockPosModel model = plugin.getDatabase()
+        BlockPosModel model = plugin.getModelCache().getBlockPos(world.getName(), pos.getX(), pos.getY(), pos.getZ());
+        if (model != null) {
+            return model;
+        }
+
+        model = plugin.getDatabase()
                 .find(BlockPosModel.class)
                 .where()
                 .eq("world", world)
@@ -149,6 +154,7 @@ public class BlockPosModel implements Model {
             plugin.getDatabase().save(model);
         }
 
+        plugin.getModelCache().putBlockPos(model);
         return model;
     }
 
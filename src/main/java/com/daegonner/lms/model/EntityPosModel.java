@@ -176,7 +176,13 @@ public class EntityPosModel implements Model {
      */
     public static EntityPosModel of(LastManStandingPlugin plugin, ArenaSpawn spawn) {
         WorldModel world = WorldModel.of(plugin, spawn.getWorld());
-        EntityPosModel model = plugin.getDatabase()
+        EntityPosModel model = plugin.getModelCache().getEntityPos(world.getName(),
+                spawn.getX(), spawn.getY(), spawn.getZ(), spawn.getYaw(), spawn.getPitch());
+        if (model != null) {
+            return model;
+        }
+
+        model = plugin.getDatabase()
                 .find(EntityPosModel.class)
                 .where()
                 .eq("world", world)
@@ -198,6 +204,7 @@ public class EntityPosModel implements Model {
             plugin.getDatabase().save(model);
         }
 
+        plugin.getModelCache().putEntityPos(model);
         return model;
     }
 
@@ -0,0 +1,228 @@
+package com.daegonner.lms.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An identity map of every {@link Model} known to be persisted, keyed by
+ * the natural keys the {@code of} factories search by. Lookups that hit the
+ * cache resolve without querying the database. While a thread is in a
+ * transaction, the models it caches are recorded so they alone can be
+ * evicted should the transaction roll back.
+ */
+public class ModelCache {
+
+    private final Map<String, WorldModel> worlds = new ConcurrentHashMap<>();
+    private final Map<List<Object>, BlockPosModel> blockPositions = new ConcurrentHashMap<>();
+    private final Map<List<Object>, EntityPosModel> entityPositions = new ConcurrentHashMap<>();
+    private final Map<List<Object>, RegionModel> regions = new ConcurrentHashMap<>();
+    private final Map<String, ArenaModel> arenas = new ConcurrentHashMap<>();
+    private final Map<Integer, ArenaModel> arenasById = new ConcurrentHashMap<>();
+    private final Map<List<Object>, ArenaSpawnModel> arenaSpawns = new ConcurrentHashMap<>();
+    private final ThreadLocal<List<Runnable>> evictions = new ThreadLocal<>();
+
+    /**
+     * Caches an arena and every model it references.
+     *
+     * @param arena the arena model.
+     */
+    public void populate(ArenaModel arena) {
+        populateBounds(arena);
+
+        if (arena.getSpawns() != null) {
+            for (ArenaSpawnModel spawn : arena.getSpawns()) {
+                if (spawn.getEntityPos() != null) {
+                    if (spawn.getEntityPos().getWorld() != null) {
+                        putWorld(spawn.getEntityPos().getWorld());
+                    }
+                    putEntityPos(spawn.getEntityPos());
+                }
+                putArenaSpawn(arena, spawn);
+            }
+        }
+    }
+
+    /**
+     * Caches an arena and its region, without touching its spawns.
+     *
+     * @param arena the arena model.
+     */
+    public void populateBounds(ArenaModel arena) {
+        putArena(arena);
+
+        if (arena.getRegion() != null) {
+            populate(arena.getRegion());
+        }
+    }
+
+    private void populate(RegionModel region) {
+        for (BlockPosModel pos : Arrays.asList(region.getMax(), region.getMin())) {
+            if (pos != null) {
+                if (pos.getWorld() != null) {
+                    putWorld(pos.getWorld());
+                }
+                putBlockPos(pos);
+            }
+        }
+
+        if (region.getMax() != null && region.getMin() != null) {
+            putRegion(region);
+        }
+    }
+
+    /**
+     * Starts recording the models cached by the current thread, as part of
+     * a transaction which may yet roll back.
+     */
+    public void beginTransaction() {
+        evictions.set(new ArrayList<>());
+    }
+
+    /**
+     * Stops recording the models cached by the current thread, keeping them
+     * all now that its transaction has committed.
+     */
+    public void commitTransaction() {
+        evictions.remove();
+    }
+
+    /**
+     * Evicts every model cached by the current thread since its transaction
+     * began, as the rolled back models may not exist or may hold changes
+     * which were never saved. Models cached by other threads are kept.
+     */
+    public void rollbackTransaction() {
+        List<Runnable> pending = evictions.get();
+        evictions.remove();
+        if (pending != null) {
+            pending.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Removes every cached model.
+     */
+    public void clear() {
+        worlds.clear();
+        blockPositions.clear();
+        entityPositions.clear();
+        regions.clear();
+        arenas.clear();
+        arenasById.clear();
+        arenaSpawns.clear();
+    }
+
+    public WorldModel getWorld(String name) {
+        return worlds.get(name);
+    }
+
+    public void putWorld(WorldModel model) {
+        put(worlds, model.getName(), model);
+    }
+
+    public BlockPosModel getBlockPos(String world, int x, int y, int z) {
+        return blockPositions.get(blockPosKey(world, x, y, z));
+    }
+
+    public void putBlockPos(BlockPosModel model) {
+        put(blockPositions, blockPosKey(model.getWorld().getName(), model.getX(), model.getY(), model.getZ()), model);
+    }
+
+    public EntityPosModel getEntityPos(String world, double x, double y, double z, float yaw, float pitch) {
+        return entityPositions.get(entityPosKey(world, x, y, z, yaw, pitch));
+    }
+
+    public void putEntityPos(EntityPosModel model) {
+        put(entityPositions, entityPosKey(model.getWorld().getName(), model.getX(), model.getY(), model.getZ(),
+                model.getYaw(), model.getPitch()), model);
+    }
+
+    public RegionModel getRegion(BlockPosModel max, BlockPosModel min) {
+        return regions.get(regionKey(max, min));
+    }
+
+    public void putRegion(RegionModel model) {
+        put(regions, regionKey(model.getMax(), model.getMin()), model);
+    }
+
+    /**
+     * Removes a region cached under a previous pair of block positions, used
+     * when the region is updated to new positions.
+     *
+     * @param max the previous maximum position.
+     * @param min the previous minimum position.
+     */
+    public void removeRegion(BlockPosModel max, BlockPosModel min) {
+        regions.remove(regionKey(max, min));
+    }
+
+    public ArenaModel getArena(String name) {
+        return arenas.get(name);
+    }
+
+    public ArenaModel getArena(int id) {
+        return arenasById.get(id);
+    }
+
+    public void putArena(ArenaModel model) {
+        put(arenas, model.getName(), model);
+        put(arenasById, model.getId(), model);
+    }
+
+    public void removeArena(String name) {
+        ArenaModel model = arenas.remove(name);
+        if (model != null) {
+            arenasById.remove(model.getId());
+        }
+    }
+
+    public ArenaSpawnModel getArenaSpawn(ArenaModel arena, EntityPosModel entityPos) {
+        return arenaSpawns.get(arenaSpawnKey(arena, entityPos));
+    }
+
+    public void putArenaSpawn(ArenaModel arena, ArenaSpawnModel model) {
+        put(arenaSpawns, arenaSpawnKey(arena, model.getEntityPos()), model);
+    }
+
+    public void removeArenaSpawn(ArenaModel arena, EntityPosModel entityPos) {
+        arenaSpawns.remove(arenaSpawnKey(arena, entityPos));
+    }
+
+    /**
+     * Removes every cached spawn of an arena.
+     *
+     * @param arenaId the id of the arena.
+     */
+    public void removeArenaSpawns(int arenaId) {
+        arenaSpawns.keySet().removeIf(key -> key.get(0).equals(arenaId));
+    }
+
+    private <K, V extends Model> void put(Map<K, V> models, K key, V model) {
+        models.put(key, model);
+
+        List<Runnable> pending = evictions.get();
+        if (pending != null) {
+            // Only evict the model put here, not any replacing it since.
+            pending.add(() -> models.remove(key, model));
+        }
+    }
+
+    private static List<Object> blockPosKey(String world, int x, int y, int z) {
+        return Arrays.asList(world, x, y, z);
+    }
+
+    private static List<Object> entityPosKey(String world, double x, double y, double z, float yaw, float pitch) {
+        return Arrays.asList(world, x, y, z, yaw, pitch);
+    }
+
+    private static List<Object> regionKey(BlockPosModel max, BlockPosModel min) {
+        return Arrays.asList(max.getId(), min.getId());
+    }
+
+    private static List<Object> arenaSpawnKey(ArenaModel arena, EntityPosModel entityPos) {
+        return Arrays.asList(arena.getId(), entityPos.getId());
+    }
+}
@@ -90,7 +90,12 @@ public class RegionModel implements Model {
     public static RegionModel of(LastManStandingPlugin plugin, Region region) {
         BlockPosModel max = BlockPosModel.of(plugin, region.getMax());
         BlockPosModel min = BlockPosModel.of(plugin, region.getMin());
-        RegionModel model = plugin.getDatabase()
+        RegionModel model = plugin.getModelCache().getRegion(max, min);
+        if (model != null) {
+            return model;
+        }
+
+        model = plugin.getDatabase()
                 .find(RegionModel.class)
                 .where()
                 .eq("max", max)
@@ -104,6 +109,7 @@ public class RegionModel implements Model {
             plugin.getDatabase().save(model);
         }
 
+        plugin.getModelCache().putRegion(model);
         return model;
     }
 
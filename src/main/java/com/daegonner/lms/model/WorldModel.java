@@ -79,7 +79,12 @@ public class WorldModel implements Model {
      * @return the matching instance, new if not already existing.
      */
     public static WorldModel of(LastManStandingPlugin plugin, String name) {
-        WorldModel model = plugin.getDatabase()
+        WorldModel model = plugin.getModelCache().getWorld(name);
+        if (model != null) {
+            return model;
+        }
+
+        model = plugin.getDatabase()
                 .find(WorldModel.class)
                 .where()
                 .eq("name", name)
@@ -91,6 +96,7 @@ public class WorldModel implements Model {
             plugin.getDatabase().save(model);
         }
 
+        plugin.getModelCache().putWorld(model);
         return model;
     }
 
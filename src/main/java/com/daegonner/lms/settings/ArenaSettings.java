@@ -85,19 +85,34 @@ public class ArenaSettings {
             .build()
             .forceCreate();
 
+    // Defaults are serialized once, so loading never touches an item off the server thread.
+    private static final List<Map<String, Object>> DEFAULT_REWARDS_DATA = serializeRewards(DEFAULT_REWARDS);
+    private static final List<Map<String, Object>> DEFAULT_INVENTORY_DATA = serializeItems(DEFAULT_INVENTORY);
+    private static final Map<String, Object> DEFAULT_HEAD_ARMOUR_DATA = GenericUtils.serializeItem(DEFAULT_HEAD_ARMOUR);
+    private static final Map<String, Object> DEFAULT_BODY_ARMOUR_DATA = GenericUtils.serializeItem(DEFAULT_BODY_ARMOUR);
+    private static final Map<String, Object> DEFAULT_LEG_ARMOUR_DATA = GenericUtils.serializeItem(DEFAULT_LEG_ARMOUR);
+    private static final Map<String, Object> DEFAULT_BOOT_ARMOUR_DATA = GenericUtils.serializeItem(DEFAULT_BOOT_ARMOUR);
+
     private final FileConfiguration config;
     private final String arenaName;
 
     private boolean disableHunger;
     private int minPlayers;
+    private double weight;
     private double killMoneyMax;
     private double killMoneyMin;
     private List<Reward> rewards;
+    private List<Map<?, ?>> inventoryData;
+    private Map<String, Object> headArmourData;
+    private Map<String, Object> bodyArmourData;
+    private Map<String, Object> legArmourData;
+    private Map<String, Object> bootArmourData;
     private List<ItemStack> inventory;
     private ItemStack headArmour;
     private ItemStack bodyArmour;
     private ItemStack legArmour;
     private ItemStack bootArmour;
+    private Kit kit;
 
     public ArenaSettings(FileConfiguration config, String arenaName) {
         this.config = config;
@@ -116,6 +131,10 @@ public class ArenaSettings {
         return minPlayers;
     }
 
+    public double getWeight() {
+        return weight;
+    }
+
     public boolean isDisableHunger() {
         return disableHunger;
     }
@@ -152,6 +171,10 @@ public class ArenaSettings {
         return bootArmour;
     }
 
+    public Kit getKit() {
+        return kit;
+    }
+
     private boolean getBoolean(String path, boolean def) {
         String defPath = "arena-settings.default." + path;
         String curPath = "arena-settings." + arenaName + "." + path;
@@ -204,36 +227,43 @@ public class ArenaSettings {
     public void load() {
         disableHunger = getBoolean("disable-hunger", true);
         minPlayers = getInt("min-players", 2);
+        weight = getDouble("weight", 1);
         killMoneyMax = getDouble("kill-money.max", -1);
         killMoneyMin = getDouble("kill-money.min", -1);
-        rewards = loadRewards("rewards", DEFAULT_REWARDS);
-        inventory = loadInventory("inventory", DEFAULT_INVENTORY);
-        headArmour = loadItem("armour.head", DEFAULT_HEAD_ARMOUR);
-        bodyArmour = loadItem("armour.body", DEFAULT_BODY_ARMOUR);
-        legArmour = loadItem("armour.legs", DEFAULT_LEG_ARMOUR);
-        bootArmour = loadItem("armour.boots", DEFAULT_BOOT_ARMOUR);
+        rewards = loadRewards("rewards", DEFAULT_REWARDS_DATA);
+        inventoryData = getMapList("inventory", DEFAULT_INVENTORY_DATA);
+        headArmourData = loadItemData("armour.head", DEFAULT_HEAD_ARMOUR_DATA);
+        bodyArmourData = loadItemData("armour.body", DEFAULT_BODY_ARMOUR_DATA);
+        legArmourData = loadItemData("armour.legs", DEFAULT_LEG_ARMOUR_DATA);
+        bootArmourData = loadItemData("armour.boots", DEFAULT_BOOT_ARMOUR_DATA);
     }
 
-    private ItemStack loadItem(String path, ItemStack def) {
-        ConfigurationSection section = getSection(path, GenericUtils.serializeItem(def));
-        return GenericUtils.parseItem(section.getValues(true));
-    }
-
-    private List<ItemStack> loadInventory(String path, List<ItemStack> def) {
-        List<Map<?, ?>> items = getMapList(path, serializeItems(def));
-        return items.stream()
+    /**
+     * Builds the kit items loaded, on the server thread.
+     */
+    public void build() {
+        inventory = inventoryData.stream()
                 .map(GenericUtils::parseItem)
                 .collect(Collectors.toList());
+        headArmour = GenericUtils.parseItem(headArmourData);
+        bodyArmour = GenericUtils.parseItem(bodyArmourData);
+        legArmour = GenericUtils.parseItem(legArmourData);
+        bootArmour = GenericUtils.parseItem(bootArmourData);
+        kit = Kit.compile(inventory, headArmour, bodyArmour, legArmour, bootArmour);
+    }
+
+    private Map<String, Object> loadItemData(String path, Map<String, Object> def) {
+        return getSection(path, def).getValues(true);
     }
 
-    private List<Map<String, Object>> serializeItems(List<ItemStack> items) {
+    private static List<Map<String, Object>> serializeItems(List<ItemStack> items) {
         return items.stream()
                 .map(GenericUtils::serializeItem)
                 .collect(Collectors.toList());
     }
 
-    private List<Reward> loadRewards(String path, List<Reward> def) {
-        List<Map<?, ?>> rewards = getMapList(path, serializeRewards(def));
+    private List<Reward> loadRewards(String path, List<Map<String, Object>> def) {
+        List<Map<?, ?>> rewards = getMapList(path, def);
         List<Reward> target = new ArrayList<>(rewards.size());
         for (Map<?, ?> reward : rewards) {
             parseReward(reward).ifPresent(target::add);
@@ -273,7 +303,7 @@ public class ArenaSettings {
         return Optional.of(new CommandReward(command.get(), sender));
     }
 
-    private List<Map<String, Object>> serializeRewards(List<Reward> rewards) {
+    private static List<Map<String, Object>> serializeRewards(List<Reward> rewards) {
         return rewards.stream()
                 .map(ConfigurationSerializable::serialize)
                 .collect(Collectors.toList());
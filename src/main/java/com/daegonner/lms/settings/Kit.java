@@ -0,0 +1,66 @@
+package com.daegonner.lms.settings;
+
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.util.List;
+
+/**
+ * An arena kit compiled into a complete player inventory layout, so it can
+ * be applied to a player in a single operation.
+ */
+public class Kit {
+
+    // Slot layout of a player inventory: storage, then armour from the feet
+    // up, then the off hand.
+    private static final int STORAGE_SIZE = 36;
+    private static final int BOOTS_SLOT = 36;
+    private static final int LEGS_SLOT = 37;
+    private static final int BODY_SLOT = 38;
+    private static final int HEAD_SLOT = 39;
+    private static final int SIZE = 41;
+
+    private final ItemStack[] contents;
+
+    private Kit(ItemStack[] contents) {
+        this.contents = contents;
+    }
+
+    /**
+     * Compiles a kit from its items, copying each so later changes to the
+     * given items do not affect the kit.
+     *
+     * @param inventory  the items placed in the inventory, in order.
+     * @param headArmour the helmet.
+     * @param bodyArmour the chestplate.
+     * @param legArmour  the leggings.
+     * @param bootArmour the boots.
+     * @return the kit.
+     */
+    public static Kit compile(List<ItemStack> inventory, ItemStack headArmour, ItemStack bodyArmour,
+                              ItemStack legArmour, ItemStack bootArmour) {
+        ItemStack[] contents = new ItemStack[SIZE];
+        for (int i = 0; i < inventory.size() && i < STORAGE_SIZE; i++) {
+            contents[i] = copy(inventory.get(i));
+        }
+        contents[HEAD_SLOT] = copy(headArmour);
+        contents[BODY_SLOT] = copy(bodyArmour);
+        contents[LEGS_SLOT] = copy(legArmour);
+        contents[BOOTS_SLOT] = copy(bootArmour);
+        return new Kit(contents);
+    }
+
+    private static ItemStack copy(ItemStack item) {
+        return item == null ? null : item.clone();
+    }
+
+    /**
+     * Replaces the entire contents of an inventory with this kit. The
+     * inventory copies each item, so the kit is never modified.
+     *
+     * @param inventory the inventory.
+     */
+    public void apply(PlayerInventory inventory) {
+        inventory.setContents(contents);
+    }
+}
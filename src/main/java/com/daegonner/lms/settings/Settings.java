@@ -3,6 +3,7 @@ package com.daegonner.lms.settings;
 import com.daegonner.lms.LastManStandingPlugin;
 import com.daegonner.lms.util.GenericUtils;
 import com.daegonner.lms.util.ItemFactoryBuilder;
+import com.daegonner.lms.util.MessageTemplate;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
@@ -26,25 +27,32 @@ public class Settings {
             .build()
             .forceCreate();
 
+    // Defaults are serialized once, so loading never touches an item off the server thread.
+    private static final Map<String, Object> DEFAULT_REWARD_CRATE_DATA =
+            GenericUtils.serializeItem(DEFAULT_REWARD_CRATE);
+
     private final LastManStandingPlugin plugin;
 
     private FileConfiguration config;
     private File configFile;
 
     private String reloadMessage;
+    private String reloadFailedMessage;
     private String lobbyStartMessage;
-    private String lobbyCountdownMessage;
+    private MessageTemplate lobbyCountdownMessage;
     private String lobbyFailedPlayersMessage;
     private String lobbyCancelledMessage;
+    private String lobbyNoArenaMessage;
     private String lobbyNonExistentMessage;
     private String lobbyJoinedMessage;
-    private String lobbyScheduledMessage;
+    private MessageTemplate lobbyScheduledMessage;
     private String lobbyNotJoinedMessage;
     private String lobbyAlreadyJoinedMessage;
+    private String gameAlreadyJoinedMessage;
     private String gameTeleportedMessage;
-    private String gameWarmupMessage;
+    private MessageTemplate gameWarmupMessage;
     private String gameCancelledMessage;
-    private String gameCompleteMessage;
+    private MessageTemplate gameCompleteMessage;
     private String gameRunningMessage;
     private String gameExitMessage;
     private String gameExitFailedMessage;
@@ -53,8 +61,11 @@ public class Settings {
     private String playerOnlyCommandMessage;
     private String invalidSelectionMessage;
     private String arenaAlreadyExistsMessage;
-    private String arenaCreatedMessage;
-    private String arenaRenamedMessage;
+    private String arenasLoadingMessage;
+    private String storageFailedMessage;
+    private String arenaSavingMessage;
+    private MessageTemplate arenaCreatedMessage;
+    private MessageTemplate arenaRenamedMessage;
     private String arenaNameSizeMessage;
     private String arenaLocationInvalidMessage;
     private String arenaSpawnCreatedMessage;
@@ -63,14 +74,34 @@ public class Settings {
     private String arenaRegionUpdatedMessage;
     private String arenaDeletedMessage;
     private String arenaListHeaderMessage;
-    private String arenaListMessage;
-    private String arenaInfoMessage;
-    private String arenaInfoSpawnMessage;
+    private MessageTemplate arenaListMessage;
+    private MessageTemplate arenaInfoMessage;
+    private MessageTemplate arenaInfoSpawnMessage;
+    private String metricsDisabledMessage;
+    private String metricsHeaderMessage;
+    private MessageTemplate metricsTimerMessage;
+    private MessageTemplate metricsGaugeMessage;
 
     private int lobbyStart;
     private int lobbyCountdown;
     private List<Integer> announcementTimes;
+    private int boundarySweepInterval;
+    private int maxConcurrentGames;
+    private int pulseBudget;
+    private int startBatchSize;
+    private int startPreloadTime;
+    private int chunkWarmBudget;
+    private int countdownMessageInterval;
+    private boolean watchConfig;
+    private boolean metricsEnabled;
+    private int metricsDumpInterval;
+    private boolean metricsCsv;
+    private String storageType;
+    private boolean lazyArenas;
+    private int lazyArenaCacheSize;
+    private Map<String, Object> rewardCrateData;
     private ItemStack rewardCrate;
+    private long savedModified;
 
     private ArenaSettings defaultArenaSettings;
     private Map<String, ArenaSettings> arenaSettingsMap;
@@ -95,11 +126,15 @@ public class Settings {
         return reloadMessage;
     }
 
+    public String getReloadFailedMessage() {
+        return reloadFailedMessage;
+    }
+
     public String getLobbyStartMessage() {
         return lobbyStartMessage;
     }
 
-    public String getLobbyCountdownMessage() {
+    public MessageTemplate getLobbyCountdownMessage() {
         return lobbyCountdownMessage;
     }
 
@@ -111,6 +146,10 @@ public class Settings {
         return lobbyCancelledMessage;
     }
 
+    public String getLobbyNoArenaMessage() {
+        return lobbyNoArenaMessage;
+    }
+
     public String getLobbyNonExistentMessage() {
         return lobbyNonExistentMessage;
     }
@@ -119,7 +158,7 @@ public class Settings {
         return lobbyJoinedMessage;
     }
 
-    public String getLobbyScheduledMessage() {
+    public MessageTemplate getLobbyScheduledMessage() {
         return lobbyScheduledMessage;
     }
 
@@ -131,11 +170,15 @@ public class Settings {
         return lobbyAlreadyJoinedMessage;
     }
 
+    public String getGameAlreadyJoinedMessage() {
+        return gameAlreadyJoinedMessage;
+    }
+
     public String getGameTeleportedMessage() {
         return gameTeleportedMessage;
     }
 
-    public String getGameWarmupMessage() {
+    public MessageTemplate getGameWarmupMessage() {
         return gameWarmupMessage;
     }
 
@@ -143,7 +186,7 @@ public class Settings {
         return gameCancelledMessage;
     }
 
-    public String getGameCompleteMessage() {
+    public MessageTemplate getGameCompleteMessage() {
         return gameCompleteMessage;
     }
 
@@ -179,11 +222,23 @@ public class Settings {
         return arenaAlreadyExistsMessage;
     }
 
-    public String getArenaCreatedMessage() {
+    public String getArenasLoadingMessage() {
+        return arenasLoadingMessage;
+    }
+
+    public String getStorageFailedMessage() {
+        return storageFailedMessage;
+    }
+
+    public String getArenaSavingMessage() {
+        return arenaSavingMessage;
+    }
+
+    public MessageTemplate getArenaCreatedMessage() {
         return arenaCreatedMessage;
     }
 
-    public String getArenaRenamedMessage() {
+    public MessageTemplate getArenaRenamedMessage() {
         return arenaRenamedMessage;
     }
 
@@ -219,18 +274,34 @@ public class Settings {
         return arenaListHeaderMessage;
     }
 
-    public String getArenaListMessage() {
+    public MessageTemplate getArenaListMessage() {
         return arenaListMessage;
     }
 
-    public String getArenaInfoMessage() {
+    public MessageTemplate getArenaInfoMessage() {
         return arenaInfoMessage;
     }
 
-    public String getArenaInfoSpawnMessage() {
+    public MessageTemplate getArenaInfoSpawnMessage() {
         return arenaInfoSpawnMessage;
     }
 
+    public String getMetricsDisabledMessage() {
+        return metricsDisabledMessage;
+    }
+
+    public String getMetricsHeaderMessage() {
+        return metricsHeaderMessage;
+    }
+
+    public MessageTemplate getMetricsTimerMessage() {
+        return metricsTimerMessage;
+    }
+
+    public MessageTemplate getMetricsGaugeMessage() {
+        return metricsGaugeMessage;
+    }
+
     public int getLobbyStart() {
         return lobbyStart;
     }
@@ -247,6 +318,62 @@ public class Settings {
         return announcementTimes;
     }
 
+    public int getBoundarySweepInterval() {
+        return boundarySweepInterval;
+    }
+
+    public int getMaxConcurrentGames() {
+        return maxConcurrentGames;
+    }
+
+    public int getPulseBudget() {
+        return pulseBudget;
+    }
+
+    public int getStartBatchSize() {
+        return startBatchSize;
+    }
+
+    public int getStartPreloadTime() {
+        return startPreloadTime;
+    }
+
+    public int getChunkWarmBudget() {
+        return chunkWarmBudget;
+    }
+
+    public int getCountdownMessageInterval() {
+        return countdownMessageInterval;
+    }
+
+    public boolean isWatchConfig() {
+        return watchConfig;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public int getMetricsDumpInterval() {
+        return metricsDumpInterval;
+    }
+
+    public boolean isMetricsCsv() {
+        return metricsCsv;
+    }
+
+    public String getStorageType() {
+        return storageType;
+    }
+
+    public boolean isLazyArenas() {
+        return lazyArenas;
+    }
+
+    public int getLazyArenaCacheSize() {
+        return lazyArenaCacheSize;
+    }
+
     public ArenaSettings getArenaSettings(String arenaName) {
         return arenaSettingsMap.getOrDefault(arenaName, defaultArenaSettings);
     }
@@ -329,19 +456,22 @@ public class Settings {
         int version = getInt("config-version", 0);
 
         reloadMessage = format(getString("messages.reload", "&eSettings successfully reloaded"));
+        reloadFailedMessage = format(getString("messages.reload-failed", "&cSettings failed to reload, check the console"));
         lobbyStartMessage = format(getString("messages.lobby-start", "&eLMS lobby is now available to join! &d/lms join"));
-        lobbyCountdownMessage = format(getString("messages.lobby-countdown", "&eLMS will start in &d{time}&e. Join with: &d/lms join"));
+        lobbyCountdownMessage = MessageTemplate.compile(format(getString("messages.lobby-countdown", "&eLMS will start in &d{time}&e. Join with: &d/lms join")));
         lobbyFailedPlayersMessage = format(getString("messages.lobby-failed-players", "&eLMS unable to start due to too low player interest"));
         lobbyCancelledMessage = format(getString("messages.lobby-cancelled", "&eLMS lobby has been cancelled"));
+        lobbyNoArenaMessage = format(getString("messages.lobby-no-arena", "&eLMS unable to start as no arena is ready"));
         lobbyNonExistentMessage = format(getString("messages.lobby-non-existent", "&cNo LMS lobby exists"));
         lobbyJoinedMessage = format(getString("messages.lobby-joined", "&eSuccessfully joined the LMS lobby"));
-        lobbyScheduledMessage = format(getString("messages.lobby-scheduled", "&eNext lobby scheduled to run in &d{time}"));
+        lobbyScheduledMessage = MessageTemplate.compile(format(getString("messages.lobby-scheduled", "&eNext lobby scheduled to run in &d{time}")));
         lobbyNotJoinedMessage = format(getString("messages.lobby-not-joined", "&cYou are currently not in the lobby"));
         lobbyAlreadyJoinedMessage = format(getString("messages.lobby-already-joined", "&cYou are already in the lobby"));
+        gameAlreadyJoinedMessage = format(getString("messages.game-already-joined", "&cYou are already in an LMS game"));
         gameTeleportedMessage = format(getString("messages.game-teleported", "&eYou have been teleported into LMS"));
-        gameWarmupMessage = format(getString("messages.game-warmup", "&eProtection ends in &d{time}"));
+        gameWarmupMessage = MessageTemplate.compile(format(getString("messages.game-warmup", "&eProtection ends in &d{time}")));
         gameCancelledMessage = format(getString("messages.game-cancelled", "&eLMS has been cancelled"));
-        gameCompleteMessage = format(getString("messages.game-complete", "&d{player}&e has won the LMS!"));
+        gameCompleteMessage = MessageTemplate.compile(format(getString("messages.game-complete", "&d{player}&e has won the LMS!")));
         gameRunningMessage = format(getString("messages.game-running", "&cA game is already in progress"));
         gameExitMessage = format(getString("messages.game-exit", "&eSuccessfully left the LMS game"));
         gameExitFailedMessage = format(getString("messages.game-exit-failed", "&cYou are not currently in an LMS game"));
@@ -350,8 +480,11 @@ public class Settings {
         playerOnlyCommandMessage = format(getString("messages.player-only-command", "&cThis command can only be executed by players"));
         invalidSelectionMessage = format(getString("messages.invalid-selection", "&cPlease create a valid cuboid selection with WorldEdit"));
         arenaAlreadyExistsMessage = format(getString("messages.arena-already-exists", "&cAn arena by that name already exists"));
-        arenaCreatedMessage = format(getString("messages.arena-created", "&eArena &d{name}&e created"));
-        arenaRenamedMessage = format(getString("messages.arena-renamed", "&eArena renamed to &d{name}"));
+        arenasLoadingMessage = format(getString("messages.arenas-loading", "&cArenas are still loading, try again shortly"));
+        storageFailedMessage = format(getString("messages.storage-failed", "&cFailed to save the change, check the console"));
+        arenaSavingMessage = format(getString("messages.arena-saving", "&cThat arena is still being saved, try again shortly"));
+        arenaCreatedMessage = MessageTemplate.compile(format(getString("messages.arena-created", "&eArena &d{name}&e created")));
+        arenaRenamedMessage = MessageTemplate.compile(format(getString("messages.arena-renamed", "&eArena renamed to &d{name}")));
         arenaNameSizeMessage = format(getString("messages.arena-name-size", "&cArena name is too long"));
         arenaLocationInvalidMessage = format(getString("messages.arena-location-invalid", "&cYou are not within the arena region"));
         arenaSpawnCreatedMessage = format(getString("messages.arena-spawn-created", "&eSuccessfully created a new arena spawn point"));
@@ -360,18 +493,37 @@ public class Settings {
         arenaRegionUpdatedMessage = format(getString("messages.arena-region-updated", "&eArena region successfully updated"));
         arenaDeletedMessage = format(getString("messages.arena-deleted", "&eArena successfully deleted"));
         arenaListHeaderMessage = format(getString("messages.arena-list-header", "&e&l -- Arenas -- "));
-        arenaListMessage = format(getString("messages.arena-list", "&d{id}&e. {arena}"));
-        arenaInfoMessage = format(getString("messages.arena-info", "&e&l -- Arena {arena} --\n" +
+        arenaListMessage = MessageTemplate.compile(format(getString("messages.arena-list", "&d{id}&e. {arena}")));
+        arenaInfoMessage = MessageTemplate.compile(format(getString("messages.arena-info", "&e&l -- Arena {arena} --\n" +
                 "&eRegion: {world} {minX},{minY},{minZ} -> {maxX},{maxY},{maxZ}\n" +
-                "{spawns}"));
-        arenaInfoSpawnMessage = format(getString("messages.arena-info-spawn", "&eSpawn {id}: {x},{y},{z} yaw:{yaw} pitch:{pitch}"));
+                "{spawns}")));
+        arenaInfoSpawnMessage = MessageTemplate.compile(format(getString("messages.arena-info-spawn", "&eSpawn {id}: {x},{y},{z} yaw:{yaw} pitch:{pitch}")));
+        metricsDisabledMessage = format(getString("messages.metrics-disabled", "&cMetrics are disabled, enable them with settings.metrics.enabled"));
+        metricsHeaderMessage = format(getString("messages.metrics-header", "&e&l -- LMS Metrics -- "));
+        metricsTimerMessage = MessageTemplate.compile(format(getString("messages.metrics-timer", "&e{timer}")));
+        metricsGaugeMessage = MessageTemplate.compile(format(getString("messages.metrics-gauge", "&e{name}: &d{value}")));
 
         lobbyStart = getInt("settings.lobby-start", 10800);
         lobbyCountdown = getInt("settings.lobby-countdown", 300);
         announcementTimes = getList("settings.announcement-times",
                 Arrays.asList(1, 2, 3, 4, 5, 10, 30, 60, 120, 300, 600, 900, 1800), Integer.class);
         Collections.sort(announcementTimes);
-        rewardCrate = loadItem("settings.reward-crate", DEFAULT_REWARD_CRATE);
+        announcementTimes = Collections.unmodifiableList(announcementTimes);
+        boundarySweepInterval = Math.max(1, getInt("settings.boundary-sweep-interval", 20));
+        maxConcurrentGames = Math.max(1, getInt("settings.max-concurrent-games", 1));
+        pulseBudget = Math.max(0, getInt("settings.pulse-budget-micros", 2000));
+        startBatchSize = Math.max(1, getInt("settings.start-batch-size", 10));
+        startPreloadTime = Math.max(0, getInt("settings.start-preload-time", 10));
+        chunkWarmBudget = Math.max(1, getInt("settings.chunk-warm-per-tick", 4));
+        countdownMessageInterval = Math.max(0, getInt("settings.countdown-message-interval", 500));
+        watchConfig = getBoolean("settings.watch-config", false);
+        metricsEnabled = getBoolean("settings.metrics.enabled", false);
+        metricsDumpInterval = Math.max(0, getInt("settings.metrics.dump-interval", 300));
+        metricsCsv = getBoolean("settings.metrics.csv", true);
+        storageType = getString("settings.storage", "ebean");
+        lazyArenas = getBoolean("settings.lazy-arenas.enabled", false);
+        lazyArenaCacheSize = Math.max(1, getInt("settings.lazy-arenas.cache-size", 100));
+        rewardCrateData = loadItemData("settings.reward-crate", DEFAULT_REWARD_CRATE_DATA);
 
         arenaSettingsMap = new HashMap<>();
 
@@ -386,6 +538,9 @@ public class Settings {
         });
         defaultArenaSettings.load();
         arenaSettingsMap.values().forEach(ArenaSettings::load);
+        arenaSettingsMap = Collections.unmodifiableMap(arenaSettingsMap);
+
+        validate();
 
         // Update the configuration file if it is outdated.
         if (version < LATEST_VERSION) {
@@ -396,20 +551,69 @@ public class Settings {
 
             // Save the config.
             config.save(configFile);
+            savedModified = configFile.lastModified();
             plugin.getLogger().info("Configuration file has been successfully updated.");
         }
     }
 
+    /**
+     * Builds the items of the loaded configuration. Unlike {@link #load()},
+     * this must be called on the server thread, as items are created through
+     * the server.
+     *
+     * @throws InvalidConfigurationException if an item is invalid.
+     */
+    public void build() throws InvalidConfigurationException {
+        rewardCrate = GenericUtils.parseItem(rewardCrateData);
+        if (rewardCrate == null || rewardCrate.getType() == Material.AIR) {
+            throw new InvalidConfigurationException("settings.reward-crate must be a valid item");
+        }
+
+        arenaSettingsMap.values().forEach(ArenaSettings::build);
+    }
+
+    /**
+     * Gets when loading last wrote the configuration file, to tell the
+     * write apart from changes made by anyone else.
+     *
+     * @return the last modified time of the file written, or {@code 0} if
+     * loading did not write it.
+     */
+    public long getSavedModified() {
+        return savedModified;
+    }
+
+    /**
+     * Rejects values which would leave the plugin unusable.
+     *
+     * @throws InvalidConfigurationException if a value is invalid.
+     */
+    private void validate() throws InvalidConfigurationException {
+        if (lobbyStart < 0) {
+            throw new InvalidConfigurationException("settings.lobby-start must not be negative");
+        }
+
+        if (lobbyCountdown < 0) {
+            throw new InvalidConfigurationException("settings.lobby-countdown must not be negative");
+        }
+
+        for (ArenaSettings arenaSettings : arenaSettingsMap.values()) {
+            if (arenaSettings.getMinPlayers() < 1) {
+                throw new InvalidConfigurationException("arena-settings." + arenaSettings.getArenaName() +
+                        ".min-players must be at least 1");
+            }
+        }
+    }
+
     public String getDocumentation() {
         Scanner scanner = new Scanner(plugin.getResource("readme.txt")).useDelimiter("\\A");
         return scanner.hasNext() ? scanner.next() : "";
     }
 
-    private ItemStack loadItem(String path, ItemStack def) {
+    private Map<String, Object> loadItemData(String path, Map<String, Object> def) {
         config.getDefaults().createSection(path);
-        GenericUtils.serializeItem(def).forEach((k, v) ->
-                config.getConfigurationSection(path).addDefault(k, v));
+        def.forEach((k, v) -> config.getConfigurationSection(path).addDefault(k, v));
         ConfigurationSection section = getOrDefaultSection(path);
-        return GenericUtils.parseItem(section.getValues(true));
+        return section.getValues(true);
     }
 }
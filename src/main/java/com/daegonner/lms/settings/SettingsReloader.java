@@ -0,0 +1,198 @@
+package com.daegonner.lms.settings;
+
+import com.daegonner.lms.LastManStandingPlugin;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Holds the current {@link Settings} and reloads them off the server
+ * thread. Each reload parses a fresh, fully validated instance, builds its
+ * items back on the server thread, then publishes it with a single reference
+ * swap, so readers never observe a partially loaded configuration.
+ * Optionally watches the configuration file and reloads whenever anyone but
+ * the reloader itself changes it.
+ */
+public class SettingsReloader {
+
+    private static final String CONFIG_FILE = "config.yml";
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private final LastManStandingPlugin plugin;
+    private final AtomicReference<Settings> current = new AtomicReference<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private Thread watcher;
+    private volatile long savedModified;
+
+    public SettingsReloader(LastManStandingPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Gets the currently published settings.
+     *
+     * @return the settings.
+     */
+    public Settings get() {
+        return current.get();
+    }
+
+    /**
+     * Loads and publishes the settings on the calling thread.
+     *
+     * @throws IOException                   if the file could not be read or written.
+     * @throws InvalidConfigurationException if the configuration is invalid.
+     */
+    public void load() throws IOException, InvalidConfigurationException {
+        Settings settings = new Settings(plugin);
+        settings.load();
+        settings.build();
+        recordSave(settings);
+        current.set(settings);
+        setWatching(settings.isWatchConfig());
+    }
+
+    /**
+     * Loads the settings in the background, then builds their items on the
+     * server thread, publishing them only if both succeed. Callbacks are ran
+     * on the server thread.
+     *
+     * @param callback  ran once the new settings are published.
+     * @param onFailure ran if the settings could not be loaded.
+     */
+    public void reload(Runnable callback, Consumer<Exception> onFailure) {
+        if (executor.isShutdown()) {
+            return;
+        }
+
+        executor.execute(() -> {
+            Settings settings = new Settings(plugin);
+            try {
+                settings.load();
+            } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+                runSync(() -> onFailure.accept(e));
+                return;
+            }
+            recordSave(settings);
+
+            runSync(() -> {
+                try {
+                    settings.build();
+                } catch (InvalidConfigurationException | RuntimeException e) {
+                    onFailure.accept(e);
+                    return;
+                }
+
+                current.set(settings);
+                setWatching(settings.isWatchConfig());
+                callback.run();
+            });
+        });
+    }
+
+    /**
+     * Remembers the configuration file written while loading settings, so
+     * the watcher does not reload in response to it.
+     *
+     * @param settings the settings loaded.
+     */
+    private void recordSave(Settings settings) {
+        if (settings.getSavedModified() != 0) {
+            savedModified = settings.getSavedModified();
+        }
+    }
+
+    private void runSync(Runnable task) {
+        if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+        }
+    }
+
+    /**
+     * Starts or stops reloading the settings whenever the configuration file
+     * changes.
+     *
+     * @param watching {@code true} to watch the configuration file.
+     */
+    public synchronized void setWatching(boolean watching) {
+        if (watching == (watcher != null)) {
+            return;
+        }
+
+        if (!watching) {
+            watcher.interrupt();
+            watcher = null;
+            return;
+        }
+
+        watcher = new Thread(() -> watch(plugin.getDataFolder().toPath()), "LMS config watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch(Path folder) {
+        try (WatchService service = folder.getFileSystem().newWatchService()) {
+            folder.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean changed = isConfigChanged(service.take());
+
+                // Editors often write a file in several steps, wait for them to settle.
+                WatchKey key;
+                while ((key = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= isConfigChanged(key);
+                }
+
+                if (changed && !isOwnWrite(folder.resolve(CONFIG_FILE))) {
+                    reload(() -> plugin.getLogger().info("Settings reloaded after " + CONFIG_FILE + " changed"),
+                            e -> plugin.getLogger().log(Level.SEVERE, "Failed to reload the changed " + CONFIG_FILE +
+                                    ", keeping the previous settings", e));
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // Watching was stopped.
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to watch " + CONFIG_FILE + " for changes", e);
+        }
+    }
+
+    /**
+     * Checks if the configuration file is still as the reloader last wrote
+     * it.
+     *
+     * @param file the configuration file.
+     * @return {@code true} if nobody else has changed the file since.
+     */
+    private boolean isOwnWrite(Path file) {
+        try {
+            return savedModified != 0 && Files.getLastModifiedTime(file).toMillis() == savedModified;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isConfigChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path && event.context().toString().equals(CONFIG_FILE)) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Stops watching the configuration file and any pending reload.
+     */
+    public void shutdown() {
+        setWatching(false);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,250 @@
+package com.daegonner.lms.storage;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.Query;
+import com.avaje.ebean.Transaction;
+import com.daegonner.lms.ArenaRecord;
+import com.daegonner.lms.LastManStandingPlugin;
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.ArenaSpawn;
+import com.daegonner.lms.entity.Region;
+import com.daegonner.lms.model.*;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores everything in the database Bukkit provides plugins through Ebean.
+ * Models are kept in the {@link ModelCache} of the plugin, so lookups of
+ * models already known do not query the database. Tables are created by
+ * Ebean, then changed by the migrations below.
+ */
+public class EbeanStorage implements Storage {
+
+    // MySQL commits each index as it is created, so every index has a
+    // migration of its own and a failure never leaves one half applied.
+    private static final List<Migration> MIGRATIONS = Arrays.asList(
+            new Migration(1, "Index arenas by name",
+                    "CREATE INDEX lms_arena_name ON arena (name)"),
+            new Migration(2, "Index worlds by name",
+                    "CREATE INDEX lms_world_name ON world (name)"),
+            new Migration(3, "Index block positions by world and coordinates",
+                    "CREATE INDEX lms_block_pos_world_xyz ON block_pos (world_id, x, y, z)"),
+            new Migration(4, "Index entity positions by world and coordinates",
+                    "CREATE INDEX lms_entity_pos_world_xyz ON entity_pos (world_id, x, y, z)"),
+            new Migration(5, "Index regions by their block positions",
+                    "CREATE INDEX lms_region_block_pos ON region (max_block_pos_id, min_block_pos_id)"),
+            new Migration(6, "Index arena spawns by arena and entity position",
+                    "CREATE INDEX lms_arena_spawn_arena ON arena_spawn (arena_id, entity_pos_id)")
+    );
+
+    private final LastManStandingPlugin plugin;
+    private final Runnable installer;
+
+    /**
+     * Creates a new Ebean storage.
+     *
+     * @param plugin    the plugin.
+     * @param installer creates the tables of every model on first use.
+     */
+    public EbeanStorage(LastManStandingPlugin plugin, Runnable installer) {
+        this.plugin = plugin;
+        this.installer = installer;
+    }
+
+    private EbeanServer getDatabase() {
+        return plugin.getDatabase();
+    }
+
+    @Override
+    public void open() {
+        // Check for the tables in a transaction of its own, as SQLite would
+        // otherwise hold a lock blocking the installer.
+        Transaction transaction = getDatabase().createTransaction();
+        try {
+            if (!hasTable(transaction.getConnection(), "arena_spawn")) {
+                plugin.getLogger().info("Installing database due to first time usage.");
+                transaction.end();
+                installer.run();
+                transaction = getDatabase().createTransaction();
+            }
+
+            new Migrator(plugin.getLogger(), MIGRATIONS).migrate(transaction.getConnection());
+            transaction.commit();
+        } catch (SQLException e) {
+            throw new StorageException("Failed to migrate the database", e);
+        } finally {
+            transaction.end();
+        }
+    }
+
+    private static boolean hasTable(Connection connection, String table) throws SQLException {
+        // Databases differ in the case they report unquoted names in. Only the
+        // current catalog is searched, as a MySQL server may hold other
+        // databases with tables of the same name.
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : Arrays.asList(table, table.toUpperCase())) {
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, null)) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // Bukkit closes the database with the plugin.
+    }
+
+    @Override
+    public void inTransaction(Runnable work) {
+        EbeanServer database = getDatabase();
+        database.beginTransaction();
+        plugin.getModelCache().beginTransaction();
+        try {
+            work.run();
+            database.commitTransaction();
+            plugin.getModelCache().commitTransaction();
+        } catch (RuntimeException e) {
+            // Models cached by the rolled back work may not exist, or hold unsaved changes.
+            plugin.getModelCache().rollbackTransaction();
+            throw e;
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    @Override
+    public List<ArenaRecord> loadArenas(boolean spawns) {
+        Query<ArenaModel> query = getDatabase().find(ArenaModel.class)
+                .fetch("region")
+                .fetch("region.max")
+                .fetch("region.min")
+                .fetch("region.max.world")
+                .fetch("region.min.world");
+        if (spawns) {
+            query.fetch("spawns.entityPos")
+                    .fetch("spawns.entityPos.world");
+        }
+        List<ArenaModel> fetched = query.findList();
+
+        plugin.getModelCache().clear();
+        List<ArenaRecord> records = new ArrayList<>(fetched.size());
+        for (ArenaModel model : fetched) {
+            ArenaRecord record;
+            if (spawns) {
+                plugin.getModelCache().populate(model);
+                record = ArenaRecord.decode(model);
+            } else {
+                plugin.getModelCache().populateBounds(model);
+                record = ArenaRecord.decodeBounds(model);
+            }
+
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public ArenaRecord loadArena(int id) {
+        ArenaModel model = getDatabase().find(ArenaModel.class)
+                .fetch("region")
+                .fetch("region.max")
+                .fetch("region.min")
+                .fetch("region.max.world")
+                .fetch("region.min.world")
+                .fetch("spawns.entityPos")
+                .fetch("spawns.entityPos.world")
+                .where()
+                .idEq(id)
+                .findUnique();
+        if (model == null) {
+            return null;
+        }
+
+        plugin.getModelCache().populate(model);
+        return ArenaRecord.decode(model);
+    }
+
+    @Override
+    public int createArena(Arena arena) {
+        return ArenaModel.of(plugin, arena).getId();
+    }
+
+    /**
+     * Gets the model of a stored arena.
+     *
+     * @param id the id the arena is stored under.
+     * @return the arena model.
+     * @throws StorageException if no arena is stored under the id.
+     */
+    private ArenaModel getArena(int id) {
+        ArenaModel model = ArenaModel.of(plugin, id);
+        if (model == null) {
+            throw new StorageException("No arena is stored under id " + id);
+        }
+        return model;
+    }
+
+    @Override
+    public void deleteArena(int id) {
+        ArenaModel model = getArena(id);
+        getDatabase().delete(model);
+        plugin.getModelCache().removeArena(model.getName());
+    }
+
+    @Override
+    public void renameArena(int id, String name) {
+        ArenaModel model = getArena(id);
+        plugin.getModelCache().removeArena(model.getName());
+        model.setName(name);
+        getDatabase().save(model);
+        plugin.getModelCache().putArena(model);
+    }
+
+    @Override
+    public void setRegion(int id, Region region) {
+        ArenaModel model = getArena(id);
+        RegionModel regionModel = model.getRegion();
+        plugin.getModelCache().removeRegion(regionModel.getMax(), regionModel.getMin());
+        regionModel.setMax(BlockPosModel.of(plugin, region.getMax()));
+        regionModel.setMin(BlockPosModel.of(plugin, region.getMin()));
+        getDatabase().save(regionModel);
+        plugin.getModelCache().putRegion(regionModel);
+        // The arena holds the changed region, so it is cached again as changed too.
+        plugin.getModelCache().putArena(model);
+    }
+
+    @Override
+    public void addSpawn(int id, ArenaSpawn spawn) {
+        ArenaSpawnModel.of(plugin, getArena(id), spawn);
+    }
+
+    @Override
+    public void removeSpawn(int id, ArenaSpawn spawn) {
+        ArenaSpawnModel spawnModel = ArenaSpawnModel.of(plugin, getArena(id), spawn);
+        getDatabase().delete(spawnModel);
+        plugin.getModelCache().removeArenaSpawn(spawnModel.getArena(), spawnModel.getEntityPos());
+    }
+
+    @Override
+    public void forgetSpawns(int id) {
+        plugin.getModelCache().removeArenaSpawns(id);
+    }
+
+    @Override
+    public void saveNextLobby(long nextLobby) {
+        LobbyScheduleModel model = LobbyScheduleModel.of(plugin);
+        model.setNextLobby(nextLobby);
+        getDatabase().save(model);
+    }
+}
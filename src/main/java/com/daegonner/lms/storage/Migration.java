@@ -0,0 +1,81 @@
+package com.daegonner.lms.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A numbered change to a database schema. Once released, a migration must
+ * never change, as databases it was applied to record its checksum.
+ */
+public class Migration {
+
+    private final int version;
+    private final String description;
+    private final List<String> statements;
+    private final long checksum;
+
+    /**
+     * Creates a new migration.
+     *
+     * @param version     the schema version the migration brings the database to.
+     * @param description what the migration does.
+     * @param statements  the SQL statements to execute, in order.
+     */
+    public Migration(int version, String description, String... statements) {
+        this.version = version;
+        this.description = description;
+        this.statements = Collections.unmodifiableList(Arrays.asList(statements));
+
+        CRC32 crc = new CRC32();
+        crc.update(String.join("\n", statements).getBytes(StandardCharsets.UTF_8));
+        this.checksum = crc.getValue();
+    }
+
+    /**
+     * Gets the schema version the migration brings the database to.
+     *
+     * @return the version.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets what the migration does.
+     *
+     * @return the description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the SQL statements to execute, in order.
+     *
+     * @return the statements.
+     */
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Gets the checksum of the statements, used to detect a migration being
+     * changed after it was applied.
+     *
+     * @return the checksum.
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public String toString() {
+        return "Migration{" +
+                "version=" + version +
+                ", description='" + description + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,137 @@
+package com.daegonner.lms.storage;
+
+import java.sql.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Brings a database schema up to date by applying every migration not yet
+ * applied, in version order, each in its own transaction. Applied versions
+ * are recorded with their checksums, so a migration changed after it was
+ * applied, or a database migrated by a newer version, is refused rather
+ * than silently used.
+ */
+public class Migrator {
+
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS lms_schema_version (" +
+            "version INTEGER NOT NULL PRIMARY KEY, " +
+            "description VARCHAR(255) NOT NULL, " +
+            "checksum BIGINT NOT NULL, " +
+            "applied_at BIGINT NOT NULL)";
+    private static final String SELECT_VERSIONS = "SELECT version, checksum FROM lms_schema_version";
+    private static final String INSERT_VERSION = "INSERT INTO lms_schema_version " +
+            "(version, description, checksum, applied_at) VALUES (?, ?, ?, ?)";
+
+    private final Logger logger;
+    private final List<Migration> migrations;
+
+    /**
+     * Creates a new migrator.
+     *
+     * @param logger     the logger to report applied migrations to.
+     * @param migrations every migration, in ascending version order.
+     * @throws IllegalArgumentException if the migrations are out of order.
+     */
+    public Migrator(Logger logger, List<Migration> migrations) {
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).getVersion() <= migrations.get(i - 1).getVersion()) {
+                throw new IllegalArgumentException("Migrations must be in ascending version order: " + migrations);
+            }
+        }
+
+        this.logger = logger;
+        this.migrations = migrations;
+    }
+
+    /**
+     * Applies every migration not yet applied to a database.
+     *
+     * @param connection the connection to the database.
+     * @throws SQLException     if the applied versions could not be read.
+     * @throws StorageException if a migration failed, or the applied
+     *                          versions do not match the known migrations.
+     */
+    public void migrate(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_VERSION_TABLE);
+            }
+            connection.commit();
+
+            Map<Integer, Long> applied = getApplied(connection);
+            verify(applied);
+
+            for (Migration migration : migrations) {
+                if (!applied.containsKey(migration.getVersion())) {
+                    apply(connection, migration);
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static Map<Integer, Long> getApplied(Connection connection) throws SQLException {
+        Map<Integer, Long> target = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(SELECT_VERSIONS)) {
+            while (result.next()) {
+                target.put(result.getInt(1), result.getLong(2));
+            }
+        }
+        return target;
+    }
+
+    private void verify(Map<Integer, Long> applied) {
+        Map<Integer, Migration> known = new HashMap<>();
+        for (Migration migration : migrations) {
+            known.put(migration.getVersion(), migration);
+        }
+
+        for (Map.Entry<Integer, Long> entry : applied.entrySet()) {
+            Migration migration = known.get(entry.getKey());
+            if (migration == null) {
+                throw new StorageException("The database was migrated to schema version " + entry.getKey() +
+                        " by a newer version of LMS");
+            }
+
+            if (migration.getChecksum() != entry.getValue()) {
+                throw new StorageException("Schema migration " + migration.getVersion() + " (" +
+                        migration.getDescription() + ") was changed after it was applied");
+            }
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) {
+        try {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : migration.getStatements()) {
+                    statement.execute(sql);
+                }
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_VERSION)) {
+                statement.setInt(1, migration.getVersion());
+                statement.setString(2, migration.getDescription());
+                statement.setLong(3, migration.getChecksum());
+                statement.setLong(4, System.currentTimeMillis());
+                statement.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // The original failure is more useful to report.
+            }
+            throw new StorageException("Failed to apply schema migration " + migration.getVersion() + " (" +
+                    migration.getDescription() + ")", e);
+        }
+
+        logger.info("Applied schema migration " + migration.getVersion() + ": " + migration.getDescription());
+    }
+}
@@ -0,0 +1,387 @@
+package com.daegonner.lms.storage;
+
+import com.daegonner.lms.ArenaRecord;
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.ArenaSpawn;
+import com.daegonner.lms.entity.BlockPos;
+import com.daegonner.lms.entity.Region;
+
+import java.io.File;
+import java.sql.*;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Stores everything in an embedded SQLite database file, using the driver
+ * bundled with the server. Each table is read or written by a single
+ * prepared statement, kept for the life of the connection, and the database
+ * runs in write-ahead logging mode so reads do not wait on writes.
+ */
+public class SqliteStorage implements Storage {
+
+    private static final List<Migration> MIGRATIONS = Collections.singletonList(
+            new Migration(1, "Create arena, spawn and lobby schedule tables",
+                    "CREATE TABLE IF NOT EXISTS lms_arena (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            "name VARCHAR(30) NOT NULL UNIQUE, " +
+                            "max_world VARCHAR(255) NOT NULL, " +
+                            "max_x INTEGER NOT NULL, " +
+                            "max_y INTEGER NOT NULL, " +
+                            "max_z INTEGER NOT NULL, " +
+                            "min_world VARCHAR(255) NOT NULL, " +
+                            "min_x INTEGER NOT NULL, " +
+                            "min_y INTEGER NOT NULL, " +
+                            "min_z INTEGER NOT NULL)",
+                    "CREATE TABLE IF NOT EXISTS lms_arena_spawn (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            "arena_id INTEGER NOT NULL REFERENCES lms_arena (id) ON DELETE CASCADE, " +
+                            "world VARCHAR(255) NOT NULL, " +
+                            "x DOUBLE NOT NULL, " +
+                            "y DOUBLE NOT NULL, " +
+                            "z DOUBLE NOT NULL, " +
+                            "yaw FLOAT NOT NULL, " +
+                            "pitch FLOAT NOT NULL)",
+                    "CREATE INDEX IF NOT EXISTS lms_arena_spawn_arena ON lms_arena_spawn (arena_id)",
+                    "CREATE TABLE IF NOT EXISTS lms_lobby_schedule (" +
+                            "id INTEGER PRIMARY KEY, " +
+                            "next_lobby BIGINT NOT NULL)")
+    );
+
+    private static final String SELECT_ARENAS = "SELECT id, name, max_world, max_x, max_y, max_z, " +
+            "min_world, min_x, min_y, min_z FROM lms_arena";
+    private static final String SELECT_ARENA = SELECT_ARENAS + " WHERE id = ?";
+    private static final String SELECT_ARENA_ID = "SELECT id FROM lms_arena WHERE name = ?";
+    private static final String SELECT_SPAWNS = "SELECT arena_id, world, x, y, z, yaw, pitch " +
+            "FROM lms_arena_spawn ORDER BY id";
+    private static final String SELECT_ARENA_SPAWNS = "SELECT arena_id, world, x, y, z, yaw, pitch " +
+            "FROM lms_arena_spawn WHERE arena_id = ? ORDER BY id";
+    private static final String INSERT_ARENA = "INSERT INTO lms_arena (name, max_world, max_x, max_y, max_z, " +
+            "min_world, min_x, min_y, min_z) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_ARENA = "DELETE FROM lms_arena WHERE id = ?";
+    private static final String RENAME_ARENA = "UPDATE lms_arena SET name = ? WHERE id = ?";
+    private static final String UPDATE_REGION = "UPDATE lms_arena SET max_world = ?, max_x = ?, max_y = ?, " +
+            "max_z = ?, min_world = ?, min_x = ?, min_y = ?, min_z = ? WHERE id = ?";
+    private static final String INSERT_SPAWN = "INSERT INTO lms_arena_spawn " +
+            "(arena_id, world, x, y, z, yaw, pitch) SELECT id, ?, ?, ?, ?, ?, ? FROM lms_arena WHERE id = ?";
+    private static final String DELETE_SPAWN = "DELETE FROM lms_arena_spawn WHERE id IN (" +
+            "SELECT id FROM lms_arena_spawn WHERE arena_id = ? " +
+            "AND world = ? AND x = ? AND y = ? AND z = ? AND yaw = ? AND pitch = ? LIMIT 1)";
+    private static final String SAVE_NEXT_LOBBY = "INSERT OR REPLACE INTO lms_lobby_schedule (id, next_lobby) " +
+            "VALUES (1, ?)";
+
+    private final File file;
+    private final Logger logger;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private Connection connection;
+    private boolean transaction = false;
+
+    /**
+     * Creates a new SQLite storage.
+     *
+     * @param file   the database file, created if it does not exist.
+     * @param logger the logger to report applied migrations to.
+     */
+    public SqliteStorage(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    @Override
+    public synchronized void open() {
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            throw new StorageException("The SQLite driver is not available on this server", e);
+        }
+
+        file.getParentFile().mkdirs();
+        try {
+            connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute("PRAGMA synchronous = NORMAL");
+                statement.execute("PRAGMA foreign_keys = ON");
+            }
+            new Migrator(logger, MIGRATIONS).migrate(connection);
+        } catch (SQLException e) {
+            throw new StorageException("Failed to open " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            for (PreparedStatement statement : statements.values()) {
+                statement.close();
+            }
+            statements.clear();
+            connection.close();
+        } catch (SQLException e) {
+            throw new StorageException("Failed to close " + file, e);
+        } finally {
+            connection = null;
+        }
+    }
+
+    @Override
+    public synchronized void inTransaction(Runnable work) {
+        // Work already in a transaction joins it.
+        if (transaction) {
+            work.run();
+            return;
+        }
+
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new StorageException("Failed to begin a transaction", e);
+        }
+
+        transaction = true;
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new StorageException("Failed to commit a transaction", e);
+        } catch (RuntimeException e) {
+            rollback();
+            throw e;
+        } finally {
+            transaction = false;
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                throw new StorageException("Failed to end a transaction", e);
+            }
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException ignored) {
+            // The original failure is more useful to report.
+        }
+    }
+
+    /**
+     * Gets the prepared statement for a query, preparing it on first use.
+     *
+     * @param sql the query.
+     * @return the prepared statement.
+     * @throws SQLException if the query could not be prepared.
+     */
+    private PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    @Override
+    public synchronized List<ArenaRecord> loadArenas(boolean spawns) {
+        try {
+            Map<Integer, List<ArenaRecord.Position>> arenaSpawns = new HashMap<>();
+            if (spawns) {
+                try (ResultSet result = prepare(SELECT_SPAWNS).executeQuery()) {
+                    readSpawns(result, arenaSpawns);
+                }
+            }
+
+            List<ArenaRecord> records = new ArrayList<>();
+            try (ResultSet result = prepare(SELECT_ARENAS).executeQuery()) {
+                while (result.next()) {
+                    List<ArenaRecord.Position> loaded = null;
+                    if (spawns) {
+                        loaded = arenaSpawns.getOrDefault(result.getInt(1), Collections.emptyList());
+                    }
+                    records.add(readArena(result, loaded));
+                }
+            }
+            return records;
+        } catch (SQLException e) {
+            throw new StorageException("Failed to load arenas", e);
+        }
+    }
+
+    @Override
+    public synchronized ArenaRecord loadArena(int id) {
+        try {
+            Map<Integer, List<ArenaRecord.Position>> arenaSpawns = new HashMap<>();
+            PreparedStatement spawns = prepare(SELECT_ARENA_SPAWNS);
+            spawns.setInt(1, id);
+            try (ResultSet result = spawns.executeQuery()) {
+                readSpawns(result, arenaSpawns);
+            }
+
+            PreparedStatement arena = prepare(SELECT_ARENA);
+            arena.setInt(1, id);
+            try (ResultSet result = arena.executeQuery()) {
+                if (!result.next()) {
+                    return null;
+                }
+                return readArena(result, arenaSpawns.getOrDefault(id, Collections.emptyList()));
+            }
+        } catch (SQLException e) {
+            throw new StorageException("Failed to load arena " + id, e);
+        }
+    }
+
+    private static void readSpawns(ResultSet result, Map<Integer, List<ArenaRecord.Position>> target)
+            throws SQLException {
+        while (result.next()) {
+            target.computeIfAbsent(result.getInt(1), key -> new ArrayList<>()).add(new ArenaRecord.Position(
+                    result.getString(2), result.getDouble(3), result.getDouble(4), result.getDouble(5),
+                    result.getFloat(6), result.getFloat(7)));
+        }
+    }
+
+    private static ArenaRecord readArena(ResultSet result, List<ArenaRecord.Position> spawns) throws SQLException {
+        ArenaRecord.Position max = new ArenaRecord.Position(result.getString(3), result.getInt(4),
+                result.getInt(5), result.getInt(6), 0, 0);
+        ArenaRecord.Position min = new ArenaRecord.Position(result.getString(7), result.getInt(8),
+                result.getInt(9), result.getInt(10), 0, 0);
+        return new ArenaRecord(result.getInt(1), result.getString(2), max, min,
+                spawns == null ? null : Collections.unmodifiableList(spawns));
+    }
+
+    @Override
+    public synchronized int createArena(Arena arena) {
+        try {
+            // Arenas already stored under the name are kept, as with Ebean.
+            PreparedStatement select = prepare(SELECT_ARENA_ID);
+            select.setString(1, arena.getName());
+            try (ResultSet result = select.executeQuery()) {
+                if (result.next()) {
+                    return result.getInt(1);
+                }
+            }
+
+            PreparedStatement insert = prepare(INSERT_ARENA);
+            insert.setString(1, arena.getName());
+            setRegion(insert, 2, arena.getRegion());
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new StorageException("No id was generated for arena " + arena.getName());
+                }
+                return keys.getInt(1);
+            }
+        } catch (SQLException e) {
+            throw new StorageException("Failed to create arena " + arena.getName(), e);
+        }
+    }
+
+    @Override
+    public synchronized void deleteArena(int id) {
+        try {
+            PreparedStatement statement = prepare(DELETE_ARENA);
+            statement.setInt(1, id);
+            checkUpdated(statement.executeUpdate(), id);
+        } catch (SQLException e) {
+            throw new StorageException("Failed to delete arena " + id, e);
+        }
+    }
+
+    @Override
+    public synchronized void renameArena(int id, String name) {
+        try {
+            PreparedStatement statement = prepare(RENAME_ARENA);
+            statement.setString(1, name);
+            statement.setInt(2, id);
+            checkUpdated(statement.executeUpdate(), id);
+        } catch (SQLException e) {
+            throw new StorageException("Failed to rename arena " + id, e);
+        }
+    }
+
+    @Override
+    public synchronized void setRegion(int id, Region region) {
+        try {
+            PreparedStatement statement = prepare(UPDATE_REGION);
+            setRegion(statement, 1, region);
+            statement.setInt(9, id);
+            checkUpdated(statement.executeUpdate(), id);
+        } catch (SQLException e) {
+            throw new StorageException("Failed to update the region of arena " + id, e);
+        }
+    }
+
+    /**
+     * Fails a write which changed nothing, so it is not reported as saved.
+     *
+     * @param rows the number of rows the write changed.
+     * @param id   the id of the arena written to.
+     * @throws StorageException if no rows were changed.
+     */
+    private static void checkUpdated(int rows, int id) {
+        if (rows == 0) {
+            throw new StorageException("No rows of arena " + id + " were changed");
+        }
+    }
+
+    private static void setRegion(PreparedStatement statement, int index, Region region) throws SQLException {
+        for (BlockPos pos : Arrays.asList(region.getMax(), region.getMin())) {
+            statement.setString(index++, pos.getWorld().getName());
+            statement.setInt(index++, pos.getX());
+            statement.setInt(index++, pos.getY());
+            statement.setInt(index++, pos.getZ());
+        }
+    }
+
+    @Override
+    public synchronized void addSpawn(int id, ArenaSpawn spawn) {
+        try {
+            PreparedStatement statement = prepare(INSERT_SPAWN);
+            setSpawn(statement, 1, spawn);
+            statement.setInt(7, id);
+            checkUpdated(statement.executeUpdate(), id);
+        } catch (SQLException e) {
+            throw new StorageException("Failed to add a spawn to arena " + id, e);
+        }
+    }
+
+    @Override
+    public synchronized void removeSpawn(int id, ArenaSpawn spawn) {
+        try {
+            PreparedStatement statement = prepare(DELETE_SPAWN);
+            statement.setInt(1, id);
+            setSpawn(statement, 2, spawn);
+            checkUpdated(statement.executeUpdate(), id);
+        } catch (SQLException e) {
+            throw new StorageException("Failed to remove a spawn from arena " + id, e);
+        }
+    }
+
+    private static void setSpawn(PreparedStatement statement, int index, ArenaSpawn spawn) throws SQLException {
+        statement.setString(index, spawn.getWorld().getName());
+        statement.setDouble(index + 1, spawn.getX());
+        statement.setDouble(index + 2, spawn.getY());
+        statement.setDouble(index + 3, spawn.getZ());
+        statement.setFloat(index + 4, spawn.getYaw());
+        statement.setFloat(index + 5, spawn.getPitch());
+    }
+
+    @Override
+    public void forgetSpawns(int id) {
+        // Nothing is kept in memory.
+    }
+
+    @Override
+    public synchronized void saveNextLobby(long nextLobby) {
+        try {
+            PreparedStatement statement = prepare(SAVE_NEXT_LOBBY);
+            statement.setLong(1, nextLobby);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new StorageException("Failed to save the lobby schedule", e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.daegonner.lms.storage;
+
+import com.daegonner.lms.ArenaRecord;
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.ArenaSpawn;
+import com.daegonner.lms.entity.Region;
+
+import java.util.List;
+
+/**
+ * Stores arenas, their regions and spawns, and the lobby schedule. Every
+ * method may block on the database, so is called off the server thread,
+ * and may be called from more than one thread. Arenas are written by the
+ * id they are stored under, which unlike their name never changes, and
+ * writes to an arena which is not stored fail with a
+ * {@link StorageException}.
+ */
+public interface Storage {
+
+    /**
+     * Opens the storage, creating anything it needs on first use.
+     *
+     * @throws StorageException if the storage could not be opened.
+     */
+    void open();
+
+    /**
+     * Closes the storage, once every write has been performed.
+     */
+    void close();
+
+    /**
+     * Performs work in a single transaction, rolling it back should the work
+     * fail.
+     *
+     * @param work the work to perform.
+     * @throws RuntimeException if the work failed and was rolled back.
+     */
+    void inTransaction(Runnable work);
+
+    /**
+     * Loads every stored arena.
+     *
+     * @param spawns {@code true} to load the spawns of each arena.
+     * @return the arena records.
+     */
+    List<ArenaRecord> loadArenas(boolean spawns);
+
+    /**
+     * Loads a stored arena with its spawns.
+     *
+     * @param id the id the arena is stored under.
+     * @return the arena record, or {@code null} if it is not stored.
+     */
+    ArenaRecord loadArena(int id);
+
+    /**
+     * Stores a new arena and its region.
+     *
+     * @param arena the arena.
+     * @return the id the arena is stored under.
+     */
+    int createArena(Arena arena);
+
+    /**
+     * Deletes an arena and its spawns.
+     *
+     * @param id the id the arena is stored under.
+     */
+    void deleteArena(int id);
+
+    /**
+     * Renames an arena.
+     *
+     * @param id   the id the arena is stored under.
+     * @param name the new name.
+     */
+    void renameArena(int id, String name);
+
+    /**
+     * Moves the region of an arena.
+     *
+     * @param id     the id the arena is stored under.
+     * @param region the new region.
+     */
+    void setRegion(int id, Region region);
+
+    /**
+     * Adds a spawn to an arena.
+     *
+     * @param id    the id the arena is stored under.
+     * @param spawn the spawn.
+     */
+    void addSpawn(int id, ArenaSpawn spawn);
+
+    /**
+     * Removes a spawn from an arena.
+     *
+     * @param id    the id the arena is stored under.
+     * @param spawn the spawn.
+     */
+    void removeSpawn(int id, ArenaSpawn spawn);
+
+    /**
+     * Forgets anything kept in memory about the spawns of an arena, once its
+     * spawns are unloaded.
+     *
+     * @param id the id the arena is stored under.
+     */
+    void forgetSpawns(int id);
+
+    /**
+     * Stores when the next lobby is scheduled to open.
+     *
+     * @param nextLobby when the next lobby opens, in milliseconds since the
+     *                  epoch.
+     */
+    void saveNextLobby(long nextLobby);
+}
@@ -0,0 +1,15 @@
+package com.daegonner.lms.storage;
+
+/**
+ * Thrown when a {@link Storage} fails to read or write.
+ */
+public class StorageException extends RuntimeException {
+
+    public StorageException(String message) {
+        super(message);
+    }
+
+    public StorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
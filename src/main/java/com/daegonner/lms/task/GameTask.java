@@ -1,40 +1,63 @@
 package com.daegonner.lms.task;
 
+import com.daegonner.lms.ChunkWarmer;
 import com.daegonner.lms.LastManStandingPlugin;
+import com.daegonner.lms.Messenger;
 import com.daegonner.lms.entity.Arena;
 import com.daegonner.lms.entity.Game;
 import com.daegonner.lms.entity.Lobby;
+import com.daegonner.lms.metrics.Metrics;
 import com.daegonner.lms.model.LobbyScheduleModel;
 import com.daegonner.lms.settings.ArenaSettings;
 import com.daegonner.lms.util.DurationUtils;
+import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
 
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Schedules and drives every LMS {@link Lobby} and {@link Game}. Any number
+ * of lobbies and games may run side by side, each in its own arena, up to
+ * the configured maximum.
+ */
 public class GameTask extends BukkitRunnable {
 
     private final LastManStandingPlugin plugin;
-    private Lobby lobby;
-    private Game game;
+    private final List<Lobby> lobbies = new ArrayList<>();
+    private final List<Game> games = new ArrayList<>();
+    private final Map<Player, Lobby> playerLobbies = new HashMap<>();
+    private final Map<Player, Game> playerGames = new HashMap<>();
+    private final ChunkWarmer chunkWarmer = new ChunkWarmer();
     private long nextLobby;
-    private long lobbyStart;
-    private int lastCountdown;
+    private int nextLobbyId = 1;
+    private int pulseOffset;
 
-    public Lobby getLobby() {
-        return lobby;
+    public GameTask(LastManStandingPlugin plugin) {
+        this.plugin = plugin;
     }
 
-    public void setLobby(Lobby lobby) {
-        this.lobby = lobby;
+    /**
+     * Gets all open lobbies, oldest first.
+     *
+     * @return the lobbies.
+     */
+    public List<Lobby> getLobbies() {
+        return Collections.unmodifiableList(lobbies);
     }
 
-    public Game getGame() {
-        return game;
+    /**
+     * Gets all games, oldest first. This may briefly include games that have
+     * just finished.
+     *
+     * @return the games.
+     */
+    public List<Game> getGames() {
+        return Collections.unmodifiableList(games);
     }
 
-    public void setGame(Game game) {
-        this.game = game;
+    public ChunkWarmer getChunkWarmer() {
+        return chunkWarmer;
     }
 
     public long getNextLobby() {
@@ -45,37 +68,76 @@ public class GameTask extends BukkitRunnable {
         this.nextLobby = nextLobby;
     }
 
-    public GameTask(LastManStandingPlugin plugin) {
-        this.plugin = plugin;
-    }
-
     @Override
     public void run() {
-        if (hasGame()) {
-            game.pulse();
+        long start = plugin.getMetrics().start();
+        tick();
+        plugin.getMetrics().stop(Metrics.Timer.GAME_TASK, start);
+    }
+
+    private void tick() {
+        pulseGames();
+        chunkWarmer.tick(plugin.getSettings().getChunkWarmBudget());
+
+        // Hold off opening lobbies until every arena can be voted for.
+        if (!plugin.getArenaManager().isReady()) {
             return;
         }
 
         if (plugin.getArenaManager().getArenas().isEmpty()) {
-            if (hasLobby()) {
-                closeLobby();
-            }
+            closeLobbies();
             return;
         }
 
-        if (!hasLobby()) {
-            if (isNextLobbyReady()) {
-                createLobby();
+        if (isNextLobbyReady() && canCreateLobby()) {
+            createLobby();
+        }
+
+        Iterator<Lobby> it = lobbies.iterator();
+        while (it.hasNext()) {
+            Lobby lobby = it.next();
+            if (!isCountdownFinished(lobby)) {
+                prepareArena(lobby);
+                warmArena(lobby);
+                countdown(lobby);
+            } else if (startGame(lobby)) {
+                chunkWarmer.release(lobby);
+                it.remove();
             }
-            return;
         }
+    }
 
-        if (isCountdownFinished()) {
-            startGame();
+    /**
+     * Pulses every running game, rotating which game is pulsed first each
+     * tick so that no game is starved when the pulse budget runs out.
+     */
+    private void pulseGames() {
+        int size = games.size();
+        if (size == 0) {
             return;
         }
 
-        countdown();
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(plugin.getSettings().getPulseBudget());
+        for (int i = 0; i < size; i++) {
+            Game game = games.get((pulseOffset + i) % size);
+            if (!game.isFinished()) {
+                long start = plugin.getMetrics().start();
+                game.pulse();
+                plugin.getMetrics().stop(Metrics.Timer.GAME_PULSE, start);
+            }
+
+            if (System.nanoTime() >= deadline) {
+                pulseOffset = (pulseOffset + i + 1) % size;
+                break;
+            }
+        }
+
+        // Discard all games which have finished.
+        for (int i = games.size() - 1; i >= 0; i--) {
+            if (games.get(i).isFinished()) {
+                chunkWarmer.release(games.remove(i));
+            }
+        }
     }
 
     /**
@@ -84,7 +146,12 @@ public class GameTask extends BukkitRunnable {
      * @return {@code true} if there is an active game.
      */
     public boolean hasGame() {
-        return game != null;
+        for (Game game : games) {
+            if (!game.isFinished()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -93,7 +160,172 @@ public class GameTask extends BukkitRunnable {
      * @return {@code true} if there is an active lobby.
      */
     public boolean hasLobby() {
-        return lobby != null;
+        return !lobbies.isEmpty();
+    }
+
+    /**
+     * Gets the lobby a player is queued in.
+     *
+     * @param player the player.
+     * @return the lobby.
+     */
+    public Optional<Lobby> getLobby(Player player) {
+        return Optional.ofNullable(playerLobbies.get(player));
+    }
+
+    /**
+     * Gets a lobby by its id.
+     *
+     * @param id the lobby id.
+     * @return the lobby.
+     */
+    public Optional<Lobby> getLobby(int id) {
+        for (Lobby lobby : lobbies) {
+            if (lobby.getId() == id) {
+                return Optional.of(lobby);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Gets the lobby players join when they do not specify one, this is the
+     * most recently opened lobby.
+     *
+     * @return the lobby.
+     */
+    public Optional<Lobby> getDefaultLobby() {
+        return lobbies.isEmpty() ? Optional.empty() : Optional.of(lobbies.get(lobbies.size() - 1));
+    }
+
+    /**
+     * Gets the game a player is participating in or spectating.
+     *
+     * @param player the player.
+     * @return the game.
+     */
+    public Optional<Game> getGame(Player player) {
+        return Optional.ofNullable(playerGames.get(player));
+    }
+
+    /**
+     * Gets the game running in an arena.
+     *
+     * @param arena the arena.
+     * @return the game.
+     */
+    public Optional<Game> getGame(Arena arena) {
+        for (Game game : games) {
+            if (!game.isFinished() && game.getArena() == arena) {
+                return Optional.of(game);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Checks if an arena is hosting a game, or is about to as the arena a
+     * lobby is expected to play in.
+     *
+     * @param arena the arena.
+     * @return {@code true} if the arena is in use.
+     */
+    public boolean isArenaInUse(Arena arena) {
+        if (getGame(arena).isPresent()) {
+            return true;
+        }
+
+        for (Lobby lobby : lobbies) {
+            if (lobby.getPreparedArena() == arena || lobby.getHighestVotedArena().orElse(null) == arena) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the game players spectate when they do not specify one, this is
+     * the oldest running game.
+     *
+     * @return the game.
+     */
+    public Optional<Game> getDefaultGame() {
+        for (Game game : games) {
+            if (!game.isFinished()) {
+                return Optional.of(game);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Adds a player to a lobby queue.
+     *
+     * @param player the player.
+     * @param lobby  the lobby.
+     * @return {@code true} if the player was not already queued in a lobby,
+     * playing or spectating a game.
+     */
+    public boolean joinLobby(Player player, Lobby lobby) {
+        if (playerLobbies.containsKey(player) || playerGames.containsKey(player)) {
+            return false;
+        }
+
+        playerLobbies.put(player, lobby);
+        lobby.getPlayerQueue().add(player);
+        return true;
+    }
+
+    /**
+     * Removes a player from whichever lobby queue they are in.
+     *
+     * @param player the player.
+     * @return {@code true} if the player was queued in a lobby.
+     */
+    public boolean quitLobby(Player player) {
+        Lobby lobby = playerLobbies.remove(player);
+        if (lobby == null) {
+            return false;
+        }
+
+        lobby.getPlayerQueue().remove(player);
+        lobby.removeVote(player);
+        return true;
+    }
+
+    /**
+     * Registers a player as being inside a game.
+     *
+     * @param player the player.
+     * @param game   the game.
+     */
+    public void indexPlayer(Player player, Game game) {
+        playerGames.put(player, game);
+    }
+
+    /**
+     * Unregisters a player from the game they were inside.
+     *
+     * @param player the player.
+     */
+    public void unindexPlayer(Player player) {
+        playerGames.remove(player);
+    }
+
+    /**
+     * Checks if another lobby may be opened without exceeding the maximum
+     * number of concurrent games.
+     *
+     * @return {@code true} if a new lobby may be created.
+     */
+    public boolean canCreateLobby() {
+        int active = lobbies.size();
+        for (Game game : games) {
+            if (!game.isFinished()) {
+                active++;
+            }
+        }
+        return active < plugin.getSettings().getMaxConcurrentGames();
     }
 
     /**
@@ -109,94 +341,228 @@ public class GameTask extends BukkitRunnable {
      * Creates a new lobby.
      */
     public void createLobby() {
-        lobby = new Lobby();
-        lobbyStart = System.currentTimeMillis();
+        lobbies.add(new Lobby(nextLobbyId++, System.currentTimeMillis()));
         nextLobby = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(plugin.getSettings().getLobbyStart());
-        plugin.getExecutorService().execute(() -> {
-            LobbyScheduleModel model = LobbyScheduleModel.of(plugin);
-            model.setNextLobby(nextLobby);
-            plugin.getDatabase().save(model);
-        });
-        lastCountdown = Integer.MAX_VALUE;
-        broadcast(plugin.getSettings().getLobbyStartMessage());
+        long next = nextLobby;
+        plugin.getPersistenceService().update(LobbyScheduleModel.class, () -> plugin.getStorage().saveNextLobby(next));
+        plugin.getMessenger().broadcast(plugin.getSettings().getLobbyStartMessage(), Messenger.Category.GENERAL);
     }
 
     /**
-     * Closes the current lobby.
+     * Closes a lobby.
+     *
+     * @param lobby the lobby to close.
      */
-    public void closeLobby() {
-        lobby = null;
-        broadcast(plugin.getSettings().getLobbyCancelledMessage());
+    public void closeLobby(Lobby lobby) {
+        if (lobbies.remove(lobby)) {
+            chunkWarmer.release(lobby);
+            lobby.getPlayerQueue().forEach(playerLobbies::remove);
+            plugin.getMessenger().announce(lobby.getPlayerQueue(), plugin.getSettings().getLobbyCancelledMessage(),
+                    Messenger.Category.GENERAL);
+        }
     }
 
     /**
-     * Checks if the current lobby countdown is finished.
+     * Closes every lobby.
+     */
+    public void closeLobbies() {
+        while (!lobbies.isEmpty()) {
+            closeLobby(lobbies.get(0));
+        }
+    }
+
+    /**
+     * Stops every running game.
+     */
+    public void stopGames() {
+        for (Game game : games) {
+            if (!game.isFinished()) {
+                game.stop();
+            }
+            chunkWarmer.release(game);
+        }
+        games.clear();
+    }
+
+    /**
+     * Checks if the countdown of a lobby is finished.
      *
+     * @param lobby the lobby.
      * @return {@code true} if the countdown is finished.
      */
-    private boolean isCountdownFinished() {
-        return System.currentTimeMillis() - lobbyStart > TimeUnit.SECONDS.toMillis(plugin.getSettings().getLobbyCountdown());
+    private boolean isCountdownFinished(Lobby lobby) {
+        return System.currentTimeMillis() - lobby.getStart() > TimeUnit.SECONDS.toMillis(plugin.getSettings().getLobbyCountdown());
     }
 
     /**
-     * Attempts to start a new game for the active lobby.
+     * Attempts to start a new game for a lobby, in an arena not already used
+     * by another game.
+     *
+     * @param lobby the lobby.
+     * @return {@code true} if the lobby is done with, whether or not a game
+     * was started.
      */
-    private void startGame() {
-        Optional<Arena> arena = lobby.getHighestVotedArena();
+    private boolean startGame(Lobby lobby) {
+        Optional<Arena> arena = selectArena(lobby);
         if (!arena.isPresent()) {
-            arena = plugin.getArenaManager().getRandomArena();
-            if (!arena.isPresent()) {
-                return;
+            if (plugin.getArenaManager().hasStoredArena()) {
+                // Every stored arena is in use, so wait for one to be freed.
+                return false;
             }
+
+            lobby.getPlayerQueue().forEach(playerLobbies::remove);
+            plugin.getMessenger().announce(lobby.getPlayerQueue(), plugin.getSettings().getLobbyNoArenaMessage(),
+                    Messenger.Category.GENERAL);
+            return true;
+        }
+
+        if (!arena.get().isSpawnsLoaded()) {
+            // Keep the arena picked until its spawns are loaded.
+            lobby.setPreparedArena(arena.get());
+            plugin.getArenaManager().loadSpawns(arena.get(), null);
+            return false;
         }
 
         ArenaSettings settings = plugin.getSettings().getArenaSettings(arena.get().getName());
+        lobby.getPlayerQueue().forEach(playerLobbies::remove);
 
         if (lobby.getPlayerQueue().size() < settings.getMinPlayers()) {
-            broadcast(plugin.getSettings().getLobbyFailedPlayersMessage());
-            lobby = null;
-            return;
+            plugin.getMessenger().announce(lobby.getPlayerQueue(), plugin.getSettings().getLobbyFailedPlayersMessage(),
+                    Messenger.Category.GENERAL);
+            return true;
         }
 
-        game = new Game(plugin, arena.get(), lobby.getPlayerQueue());
-        lobby = null;
+        Game game = new Game(plugin, arena.get(), lobby.getPlayerQueue());
+        games.add(game);
+        chunkWarmer.warm(game, arena.get());
+        game.getPending().forEach(player -> indexPlayer(player, game));
         game.start(settings);
-        broadcast(plugin.getSettings().getGameTeleportedMessage());
+        return true;
     }
 
     /**
-     * Sends messages in chat for the active lobby countdown.
+     * Selects the arena a lobby should play in. The highest voted arena wins
+     * if it is free, otherwise the arena prepared for the lobby is kept, and
+     * failing that a free arena is picked by weight. Arenas not yet stored
+     * are never selected, as rewards are signed with the arena id.
+     *
+     * @param lobby the lobby.
+     * @return the arena, or empty if every stored arena is in use.
      */
-    private void countdown() {
-        long remaining = TimeUnit.MILLISECONDS.toSeconds(getRemainingCountdown());
+    private Optional<Arena> selectArena(Lobby lobby) {
+        Optional<Arena> voted = lobby.getHighestVotedArena();
+        if (voted.isPresent() && isPlayable(voted.get())) {
+            return voted;
+        }
+
+        Arena prepared = lobby.getPreparedArena();
+        if (prepared != null && isPlayable(prepared)) {
+            return Optional.of(prepared);
+        }
+
+        return plugin.getArenaManager().getWeightedArena(getArenasInUse(), lobby.getPlayerQueue().size());
+    }
+
+    /**
+     * Checks if a lobby may start a game in an arena, which must be loaded,
+     * stored and not hosting another game.
+     *
+     * @param arena the arena.
+     * @return {@code true} if the arena may be played.
+     */
+    private boolean isPlayable(Arena arena) {
+        return arena.getId() != 0 && !getGame(arena).isPresent() && plugin.getArenaManager().isLoaded(arena);
+    }
+
+    /**
+     * Selects the arena for a lobby shortly before its countdown ends, in
+     * case nobody has voted, so its chunks can be warmed before the start.
+     *
+     * @param lobby the lobby.
+     */
+    private void prepareArena(Lobby lobby) {
+        if (lobby.getPreparedArena() != null ||
+                getRemainingCountdown(lobby) > TimeUnit.SECONDS.toMillis(plugin.getSettings().getStartPreloadTime())) {
+            return;
+        }
+
+        selectArena(lobby).ifPresent(lobby::setPreparedArena);
+    }
+
+    /**
+     * Warms the chunks of the arena a lobby is currently expected to play
+     * in, retargeting whenever the vote leader changes.
+     *
+     * @param lobby the lobby.
+     */
+    private void warmArena(Lobby lobby) {
+        Optional<Arena> voted = lobby.getHighestVotedArena();
+        if (voted.isPresent() && isPlayable(voted.get())) {
+            chunkWarmer.warm(lobby, voted.get());
+            plugin.getArenaManager().loadSpawns(voted.get(), null);
+        } else if (lobby.getPreparedArena() != null) {
+            chunkWarmer.warm(lobby, lobby.getPreparedArena());
+            plugin.getArenaManager().loadSpawns(lobby.getPreparedArena(), null);
+        }
+    }
+
+    /**
+     * Gets every arena currently hosting a game.
+     *
+     * @return the arenas in use.
+     */
+    private Set<Arena> getArenasInUse() {
+        Set<Arena> target = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Game game : games) {
+            if (!game.isFinished()) {
+                target.add(game.getArena());
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Sends messages in chat for a lobby countdown to everyone who may still
+     * join, that is every online player not inside a game.
+     *
+     * @param lobby the lobby.
+     */
+    private void countdown(Lobby lobby) {
+        long remaining = TimeUnit.MILLISECONDS.toSeconds(getRemainingCountdown(lobby));
 
         for (int time : plugin.getSettings().getAnnouncementTimes()) {
-            if (time >= remaining && time < lastCountdown) {
-                broadcast(plugin.getSettings().getLobbyCountdownMessage().replace("{time}",
-                        DurationUtils.format((int) remaining)));
-                lastCountdown = time;
+            if (time >= remaining && time < lobby.getLastCountdown()) {
+                plugin.getMessenger().announce(getPlayersOutsideGames(), plugin.getSettings().getLobbyCountdownMessage()
+                        .render("time", DurationUtils.format((int) remaining)), Messenger.Category.COUNTDOWN);
+                lobby.setLastCountdown(time);
                 return;
             }
         }
     }
 
     /**
-     * Gets the remaining duration in millis for the active lobby countdown.
+     * Gets every online player who is not participating in or spectating a
+     * game.
      *
-     * @return the remaining countdown.
+     * @return the players.
      */
-    private long getRemainingCountdown() {
-        return lobbyStart - System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(plugin.getSettings().getLobbyCountdown());
+    private List<Player> getPlayersOutsideGames() {
+        List<Player> players = new ArrayList<>();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            if (!playerGames.containsKey(player)) {
+                players.add(player);
+            }
+        }
+        return players;
     }
 
     /**
-     * Attempts to broadcast a message if it is not empty.
+     * Gets the remaining duration in millis for a lobby countdown.
      *
-     * @param message the message to send.
+     * @param lobby the lobby.
+     * @return the remaining countdown.
      */
-    private void broadcast(String message) {
-        if (!message.isEmpty()) {
-            plugin.getServer().broadcastMessage(message);
-        }
+    private long getRemainingCountdown(Lobby lobby) {
+        return lobby.getStart() - System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(plugin.getSettings().getLobbyCountdown());
     }
 }
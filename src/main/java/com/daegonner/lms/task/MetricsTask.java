@@ -0,0 +1,96 @@
+package com.daegonner.lms.task;
+
+import com.daegonner.lms.LastManStandingPlugin;
+import com.daegonner.lms.metrics.LatencyHistogram;
+import com.daegonner.lms.metrics.Metrics;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Periodically logs the recorded metrics and appends them to a CSV file,
+ * then clears them for the next period.
+ */
+public class MetricsTask extends BukkitRunnable {
+
+    private static final String CSV_HEADER = "timestamp,metric,statistic,value\n";
+
+    private final LastManStandingPlugin plugin;
+    private final File csvFile;
+    private long lastDump = System.currentTimeMillis();
+
+    public MetricsTask(LastManStandingPlugin plugin) {
+        this.plugin = plugin;
+        this.csvFile = new File(plugin.getDataFolder(), "metrics.csv");
+    }
+
+    @Override
+    public void run() {
+        long interval = TimeUnit.SECONDS.toMillis(plugin.getSettings().getMetricsDumpInterval());
+        long now = System.currentTimeMillis();
+        if (!plugin.getMetrics().isEnabled() || interval <= 0 || now - lastDump < interval) {
+            return;
+        }
+
+        lastDump = now;
+        Map<Metrics.Timer, LatencyHistogram.Snapshot> timers = plugin.getMetrics().snapshotAndReset();
+        Map<String, Long> gauges = plugin.getMetrics().sampleGauges();
+
+        StringBuilder csv = new StringBuilder();
+        timers.forEach((timer, snapshot) -> {
+            if (snapshot.getCount() == 0) {
+                return;
+            }
+
+            plugin.getLogger().info(format(timer, snapshot));
+            appendRow(csv, now, timer.getName(), "count", snapshot.getCount());
+            appendRow(csv, now, timer.getName(), "mean_us", (long) snapshot.getMean());
+            appendRow(csv, now, timer.getName(), "p50_us", snapshot.getPercentile(50));
+            appendRow(csv, now, timer.getName(), "p90_us", snapshot.getPercentile(90));
+            appendRow(csv, now, timer.getName(), "p99_us", snapshot.getPercentile(99));
+            appendRow(csv, now, timer.getName(), "max_us", snapshot.getMax());
+        });
+        gauges.forEach((name, value) -> appendRow(csv, now, name, "value", value));
+
+        if (plugin.getSettings().isMetricsCsv()) {
+            String rows = csv.toString();
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> write(rows));
+        }
+    }
+
+    /**
+     * Formats a timer snapshot as a single human readable line.
+     *
+     * @param timer    the timer.
+     * @param snapshot the snapshot.
+     * @return the formatted line.
+     */
+    public static String format(Metrics.Timer timer, LatencyHistogram.Snapshot snapshot) {
+        return String.format("%s: n=%d mean=%.1fus p50=%dus p90=%dus p99=%dus max=%dus", timer.getName(),
+                snapshot.getCount(), snapshot.getMean(), snapshot.getPercentile(50), snapshot.getPercentile(90),
+                snapshot.getPercentile(99), snapshot.getMax());
+    }
+
+    private static void appendRow(StringBuilder csv, long timestamp, String metric, String statistic, long value) {
+        csv.append(timestamp).append(',').append(metric).append(',').append(statistic).append(',').append(value)
+                .append('\n');
+    }
+
+    private synchronized void write(String rows) {
+        boolean created = !csvFile.exists();
+        try (Writer writer = new FileWriter(csvFile, true)) {
+            if (created) {
+                writer.write(CSV_HEADER);
+            }
+            writer.write(rows);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to write metrics to " + csvFile.getName(), e);
+        }
+    }
+}
@@ -1,48 +1,66 @@
 package com.daegonner.lms.util;
 
-import org.apache.commons.lang.StringUtils;
-
-import java.util.LinkedList;
-import java.util.List;
-
 import static java.util.concurrent.TimeUnit.*;
 
 public final class DurationUtils {
 
+    // Countdowns only ever format a small set of short durations, so each
+    // is formatted once and reused.
+    private static final int CACHE_LIMIT = (int) SECONDS.convert(1, HOURS);
+    private static final String[] CACHE = new String[CACHE_LIMIT + 1];
+
     private DurationUtils() {
     }
 
     public static String format(int seconds) {
-        List<String> parts = new LinkedList<>();
-        long days = seconds / SECONDS.convert(1, DAYS);
-        if (days > 0) {
-            seconds -= SECONDS.convert(days, DAYS);
-            parts.add(days + (days > 1 ? " days" : " day"));
+        if (seconds < 0 || seconds > CACHE_LIMIT) {
+            return compute(seconds);
         }
 
-        long hours = seconds / SECONDS.convert(1, HOURS);
-        if (hours > 0) {
-            seconds -= SECONDS.convert(hours, HOURS);
-            parts.add(hours + (hours > 1 ? " hours" : " hour"));
+        String formatted = CACHE[seconds];
+        if (formatted == null) {
+            formatted = compute(seconds);
+            CACHE[seconds] = formatted;
         }
+        return formatted;
+    }
 
-        long minutes = seconds / SECONDS.convert(1, MINUTES);
-        if (minutes > 0) {
-            seconds -= SECONDS.convert(minutes, MINUTES);
-            parts.add(minutes + (minutes > 1 ? " minutes" : " minute"));
-        }
+    private static String compute(int seconds) {
+        int days = (int) (seconds / SECONDS.convert(1, DAYS));
+        seconds -= SECONDS.convert(days, DAYS);
+        int hours = (int) (seconds / SECONDS.convert(1, HOURS));
+        seconds -= SECONDS.convert(hours, HOURS);
+        int minutes = (int) (seconds / SECONDS.convert(1, MINUTES));
+        seconds -= SECONDS.convert(minutes, MINUTES);
+
+        int parts = (days > 0 ? 1 : 0) + (hours > 0 ? 1 : 0) + (minutes > 0 ? 1 : 0) + (seconds > 0 ? 1 : 0);
+        StringBuilder builder = new StringBuilder(16 * parts);
+        int written = append(builder, days, " day", 0, parts);
+        written = append(builder, hours, " hour", written, parts);
+        written = append(builder, minutes, " minute", written, parts);
+        append(builder, seconds, " second", written, parts);
+        return builder.toString();
+    }
 
-        if (seconds > 0) {
-            parts.add(seconds + (seconds > 1 ? " seconds" : " second"));
+    /**
+     * Appends one part of a duration, joining the parts with commas and the
+     * final part with "and".
+     *
+     * @return the number of parts written so far.
+     */
+    private static int append(StringBuilder builder, int value, String unit, int written, int parts) {
+        if (value <= 0) {
+            return written;
         }
 
-        String formatted = StringUtils.join(parts, ", ");
-        if (formatted.contains(", ")) {
-            int index = formatted.lastIndexOf(", ");
-            StringBuilder builder = new StringBuilder(formatted);
-            formatted = builder.replace(index, index + 2, " and ").toString();
+        if (written > 0) {
+            builder.append(written == parts - 1 ? " and " : ", ");
         }
 
-        return formatted;
+        builder.append(value).append(unit);
+        if (value > 1) {
+            builder.append('s');
+        }
+        return written + 1;
     }
 }
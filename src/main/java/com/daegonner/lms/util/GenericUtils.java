@@ -9,6 +9,22 @@ import java.util.stream.Collectors;
 
 public final class GenericUtils {
 
+    // The constants of each enum by name, built the first time each enum is
+    // parsed so lookups need neither a regex nor an exception on a miss.
+    private static final ClassValue<Map<String, Enum<?>>> ENUM_CONSTANTS = new ClassValue<Map<String, Enum<?>>>() {
+        @Override
+        protected Map<String, Enum<?>> computeValue(Class<?> type) {
+            Map<String, Enum<?>> target = new HashMap<>();
+            for (Object constant : type.getEnumConstants()) {
+                target.put(((Enum<?>) constant).name(), (Enum<?>) constant);
+            }
+            return Collections.unmodifiableMap(target);
+        }
+    };
+
+    // Enchantments by normalized name, rebuilt if more are registered.
+    private static volatile Map<String, Enchantment> enchantments = Collections.emptyMap();
+
     private GenericUtils() {
     }
 
@@ -63,7 +79,7 @@ public final class GenericUtils {
             int level = 0;
 
             if (key instanceof String) {
-                enchantment = Enchantment.getByName((String) key);
+                enchantment = parseEnchantment((String) key).orElse(null);
             }
 
             if (value instanceof Integer) {
@@ -77,6 +93,27 @@ public final class GenericUtils {
         return target;
     }
 
+    /**
+     * Gets an enchantment by name, ignoring case and treating whitespace as
+     * underscores, so both {@code DAMAGE_ALL} and {@code damage all} match.
+     *
+     * @param name the enchantment name.
+     * @return the enchantment.
+     */
+    public static Optional<Enchantment> parseEnchantment(String name) {
+        String key = normalize(name);
+        Enchantment enchantment = enchantments.get(key);
+        if (enchantment == null && enchantments.size() != Enchantment.values().length) {
+            Map<String, Enchantment> target = new HashMap<>();
+            for (Enchantment registered : Enchantment.values()) {
+                target.put(normalize(registered.getName()), registered);
+            }
+            enchantments = target;
+            enchantment = target.get(key);
+        }
+        return Optional.ofNullable(enchantment);
+    }
+
     public static <K extends Enum<K>, V> Map<K, V> castEnumMap(Class<K> keyType, Class<? extends V> valueType, Map<?, ?> toCast) {
         Map<K, V> target = new EnumMap<>(keyType);
         for (Map.Entry<?, ?> entry : toCast.entrySet()) {
@@ -134,12 +171,56 @@ public final class GenericUtils {
     }
 
     public static <T extends Enum<T>> Optional<T> parseEnum(Class<T> type, String name) {
-        name = name.toUpperCase().replaceAll("\\s+", "_").replaceAll("\\W", "");
-        try {
-            return Optional.of(Enum.valueOf(type, name));
-        } catch (IllegalArgumentException | NullPointerException e) {
-            return Optional.empty();
+        return Optional.ofNullable(type.cast(ENUM_CONSTANTS.get(type).get(normalize(name))));
+    }
+
+    /**
+     * Converts a name as written in the configuration into the form of a
+     * constant name. The name is upper cased, each run of whitespace becomes
+     * an underscore, then anything other than letters, digits and
+     * underscores is removed, so {@code diamond sword} becomes
+     * {@code DIAMOND_SWORD}.
+     *
+     * @param name the name.
+     * @return the normalized name.
+     */
+    public static String normalize(String name) {
+        String upper = name.toUpperCase();
+        int i = 0;
+        while (i < upper.length() && isWordChar(upper.charAt(i))) {
+            i++;
         }
+
+        if (i == upper.length()) {
+            return upper;
+        }
+
+        StringBuilder builder = new StringBuilder(upper.length()).append(upper, 0, i);
+        boolean whitespace = false;
+        for (; i < upper.length(); i++) {
+            char c = upper.charAt(i);
+            if (isWhitespace(c)) {
+                if (!whitespace) {
+                    builder.append('_');
+                }
+                whitespace = true;
+                continue;
+            }
+
+            whitespace = false;
+            if (isWordChar(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\013' || c == '\f' || c == '\r';
     }
 
     public static <T extends Enum<T>> Optional<T> parseEnum(Class<T> type, Object toParse) {
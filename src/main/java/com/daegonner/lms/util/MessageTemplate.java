@@ -0,0 +1,135 @@
+package com.daegonner.lms.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message with {@code {placeholder}} tokens, parsed once so that each
+ * render is a single pass over its parts.
+ */
+public final class MessageTemplate {
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(StringBuilder::new);
+
+    private final String source;
+    private final String[] parts;
+    private final boolean[] placeholders;
+
+    private MessageTemplate(String source, String[] parts, boolean[] placeholders) {
+        this.source = source;
+        this.parts = parts;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Parses a message into a template.
+     *
+     * @param source the message.
+     * @return the template.
+     */
+    public static MessageTemplate compile(String source) {
+        List<String> parts = new ArrayList<>();
+        List<Boolean> placeholders = new ArrayList<>();
+        int literalStart = 0;
+        int open = source.indexOf('{');
+        while (open >= 0) {
+            int close = source.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+
+            String name = source.substring(open + 1, close);
+            if (!isPlaceholderName(name)) {
+                open = source.indexOf('{', open + 1);
+                continue;
+            }
+
+            if (open > literalStart) {
+                parts.add(source.substring(literalStart, open));
+                placeholders.add(false);
+            }
+            parts.add(name);
+            placeholders.add(true);
+            literalStart = close + 1;
+            open = source.indexOf('{', literalStart);
+        }
+
+        if (literalStart < source.length()) {
+            parts.add(source.substring(literalStart));
+            placeholders.add(false);
+        }
+
+        boolean[] target = new boolean[placeholders.size()];
+        for (int i = 0; i < target.length; i++) {
+            target[i] = placeholders.get(i);
+        }
+        return new MessageTemplate(source, parts.toArray(new String[parts.size()]), target);
+    }
+
+    private static boolean isPlaceholderName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if this template renders nothing.
+     *
+     * @return {@code true} if the message is empty.
+     */
+    public boolean isEmpty() {
+        return source.isEmpty();
+    }
+
+    /**
+     * Renders this template. Placeholders without a replacement are left as
+     * they are.
+     *
+     * @param replacements alternating placeholder names and their values.
+     * @return the rendered message.
+     */
+    public String render(Object... replacements) {
+        if (parts.length == 1 && !placeholders[0]) {
+            return parts[0];
+        }
+
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        for (int i = 0; i < parts.length; i++) {
+            if (!placeholders[i]) {
+                builder.append(parts[i]);
+                continue;
+            }
+
+            int replacement = find(parts[i], replacements);
+            if (replacement < 0) {
+                builder.append('{').append(parts[i]).append('}');
+            } else {
+                builder.append(replacements[replacement]);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static int find(String name, Object[] replacements) {
+        for (int i = 0; i + 1 < replacements.length; i += 2) {
+            if (name.equals(replacements[i])) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,236 @@
+package com.daegonner.lms;
+
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.BlockPos;
+import com.daegonner.lms.entity.Region;
+import com.daegonner.lms.settings.ArenaSettings;
+import com.daegonner.lms.settings.Settings;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the arena picks of the {@link ArenaManager} follow the expected
+ * distributions with a chi-square goodness of fit test.
+ */
+public class ArenaManagerTest {
+
+    private static final int SAMPLES = 100_000;
+
+    // Chi-square critical values at p = 0.0001, indexed by degrees of freedom.
+    private static final double[] CRITICAL_VALUES = {0, 15.137, 18.421, 21.108, 23.513};
+
+    private final World world = mock(World.class);
+    private LastManStandingPlugin plugin;
+    private Settings settings;
+    private ArenaManager manager;
+    private int nextArena;
+
+    @Before
+    public void setUp() {
+        plugin = mock(LastManStandingPlugin.class);
+        settings = mock(Settings.class);
+        when(plugin.getSettings()).thenReturn(settings);
+        manager = new ArenaManager(plugin);
+    }
+
+    @Test
+    public void randomArenaIsUniform() {
+        List<Arena> arenas = addArenas(5);
+        assertDistribution(evenly(arenas), manager::getRandomArena);
+    }
+
+    @Test
+    public void randomArenaSkipsExcluded() {
+        List<Arena> arenas = addArenas(5);
+        Set<Arena> excluded = Collections.singleton(arenas.get(2));
+        List<Arena> expected = new ArrayList<>(arenas);
+        expected.removeAll(excluded);
+        assertDistribution(evenly(expected), () -> manager.getRandomArena(excluded));
+    }
+
+    @Test
+    public void weightedArenaFollowsWeights() {
+        List<Arena> arenas = addArenas(5);
+        configure(settings, arenas.get(0), 2, 1);
+        configure(settings, arenas.get(1), 2, 2);
+        configure(settings, arenas.get(2), 2, 3);
+        configure(settings, arenas.get(3), 2, 4);
+        configure(settings, arenas.get(4), 2, 0);
+
+        Map<Arena, Double> expected = new HashMap<>();
+        expected.put(arenas.get(0), 0.1);
+        expected.put(arenas.get(1), 0.2);
+        expected.put(arenas.get(2), 0.3);
+        expected.put(arenas.get(3), 0.4);
+        assertDistribution(expected, () -> manager.getWeightedArena(Collections.emptySet(), 10));
+    }
+
+    @Test
+    public void weightedArenaSkipsExcludedAndUnderpopulated() {
+        List<Arena> arenas = addArenas(5);
+        configure(settings, arenas.get(0), 2, 1);
+        configure(settings, arenas.get(1), 2, 3);
+        configure(settings, arenas.get(2), 2, 5);
+        configure(settings, arenas.get(3), 20, 5);
+        configure(settings, arenas.get(4), 5, 1);
+        Set<Arena> excluded = Collections.singleton(arenas.get(2));
+
+        Map<Arena, Double> expected = new HashMap<>();
+        expected.put(arenas.get(0), 0.2);
+        expected.put(arenas.get(1), 0.6);
+        expected.put(arenas.get(4), 0.2);
+        assertDistribution(expected, () -> manager.getWeightedArena(excluded, 10));
+    }
+
+    @Test
+    public void weightedArenaWithoutWeightsIsUniformAndRespectsMinPlayers() {
+        List<Arena> arenas = addArenas(4);
+        configure(settings, arenas.get(0), 2, 0);
+        configure(settings, arenas.get(1), 2, 0);
+        configure(settings, arenas.get(2), 2, 0);
+        configure(settings, arenas.get(3), 20, 5);
+
+        assertDistribution(evenly(arenas.subList(0, 3)), () -> manager.getWeightedArena(Collections.emptySet(), 10));
+    }
+
+    @Test
+    public void weightedArenaFallsBackToFreeArenasWithoutEligibleArenas() {
+        List<Arena> arenas = addArenas(3);
+        configure(settings, arenas.get(0), 20, 1);
+        configure(settings, arenas.get(1), 5, 1);
+        configure(settings, arenas.get(2), 2, 1);
+
+        assertDistribution(evenly(arenas), () -> manager.getWeightedArena(Collections.emptySet(), 1));
+        Set<Arena> excluded = Collections.singleton(arenas.get(2));
+        assertDistribution(evenly(arenas.subList(0, 2)), () -> manager.getWeightedArena(excluded, 3));
+        assertFalse(manager.getWeightedArena(new HashSet<>(arenas), 1).isPresent());
+    }
+
+    @Test
+    public void weightedArenaSkipsUnstoredArenas() {
+        List<Arena> arenas = addArenas(3);
+        configure(settings, arenas.get(0), 2, 1);
+        configure(settings, arenas.get(1), 2, 5);
+        configure(settings, arenas.get(2), 2, 1);
+        Arena unstored = new Arena("unstored", Region.create(new BlockPos(world, -64, 0, 0),
+                new BlockPos(world, -32, 32, 32)));
+        manager.addArena(unstored);
+        configure(settings, unstored, 2, 5);
+
+        assertDistribution(weighted(arenas, 1, 5, 1), () -> manager.getWeightedArena(Collections.emptySet(), 10));
+        assertDistribution(evenly(arenas.subList(0, 2)),
+                () -> manager.getWeightedArena(Collections.singleton(arenas.get(2)), 1));
+
+        manager.setId(unstored, 100);
+        assertDistribution(weighted(Arrays.asList(arenas.get(0), unstored), 1, 5),
+                () -> manager.getWeightedArena(new HashSet<>(arenas.subList(1, 3)), 10));
+    }
+
+    @Test
+    public void weightedArenaFollowsArenaChanges() {
+        List<Arena> arenas = addArenas(2);
+        configure(settings, arenas.get(0), 2, 1);
+        configure(settings, arenas.get(1), 2, 3);
+        assertDistribution(weighted(arenas, 1, 3), () -> manager.getWeightedArena(Collections.emptySet(), 10));
+
+        manager.removeArena(arenas.get(1));
+        Arena added = addArenas(1).get(0);
+        configure(settings, added, 2, 1);
+        assertDistribution(weighted(Arrays.asList(arenas.get(0), added), 1, 1),
+                () -> manager.getWeightedArena(Collections.emptySet(), 10));
+    }
+
+    @Test
+    public void weightedArenaFollowsSettingsReload() {
+        List<Arena> arenas = addArenas(2);
+        configure(settings, arenas.get(0), 2, 1);
+        configure(settings, arenas.get(1), 2, 3);
+        assertDistribution(weighted(arenas, 1, 3), () -> manager.getWeightedArena(Collections.emptySet(), 10));
+
+        Settings reloaded = mock(Settings.class);
+        configure(reloaded, arenas.get(0), 2, 3);
+        configure(reloaded, arenas.get(1), 2, 1);
+        when(plugin.getSettings()).thenReturn(reloaded);
+        assertDistribution(weighted(arenas, 3, 1), () -> manager.getWeightedArena(Collections.emptySet(), 10));
+    }
+
+    @Test
+    public void arenaIsFoundAtItsCurrentRegion() {
+        Arena arena = addArenas(2).get(1);
+        assertSame(arena, manager.findArenaAt(new Location(world, 80, 16, 16)).orElse(null));
+
+        manager.setRegion(arena, new BlockPos(world, 1000, 0, 1000), new BlockPos(world, 1032, 32, 1032));
+        assertFalse(manager.findArenaAt(new Location(world, 80, 16, 16)).isPresent());
+        assertSame(arena, manager.findArenaAt(new Location(world, 1016, 16, 1016)).orElse(null));
+    }
+
+    private List<Arena> addArenas(int count) {
+        List<Arena> arenas = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int x = nextArena++ * 64;
+            Arena arena = new Arena("arena" + x, Region.create(new BlockPos(world, x, 0, 0),
+                    new BlockPos(world, x + 32, 32, 32)));
+            arena.setId(nextArena);
+            arenas.add(arena);
+        }
+        arenas.forEach(manager::addArena);
+        return arenas;
+    }
+
+    private static void configure(Settings settings, Arena arena, int minPlayers, double weight) {
+        ArenaSettings arenaSettings = mock(ArenaSettings.class);
+        when(arenaSettings.getMinPlayers()).thenReturn(minPlayers);
+        when(arenaSettings.getWeight()).thenReturn(weight);
+        when(settings.getArenaSettings(arena.getName())).thenReturn(arenaSettings);
+    }
+
+    private static Map<Arena, Double> evenly(List<Arena> arenas) {
+        Map<Arena, Double> shares = new HashMap<>();
+        arenas.forEach(arena -> shares.put(arena, 1.0 / arenas.size()));
+        return shares;
+    }
+
+    private static Map<Arena, Double> weighted(List<Arena> arenas, double... weights) {
+        double total = Arrays.stream(weights).sum();
+        Map<Arena, Double> shares = new HashMap<>();
+        for (int i = 0; i < arenas.size(); i++) {
+            shares.put(arenas.get(i), weights[i] / total);
+        }
+        return shares;
+    }
+
+    /**
+     * Asserts the arenas picked follow the expected shares, and that no
+     * arena without a share is ever picked.
+     *
+     * @param expected the expected share of picks of each arena.
+     * @param picker   picks an arena.
+     */
+    private static void assertDistribution(Map<Arena, Double> expected, Supplier<Optional<Arena>> picker) {
+        Map<Arena, Integer> counts = new HashMap<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            Arena arena = picker.get().orElseThrow(() -> new AssertionError("No arena was picked"));
+            assertTrue("Picked unexpected arena " + arena.getName(), expected.containsKey(arena));
+            counts.merge(arena, 1, Integer::sum);
+        }
+
+        double chiSquare = 0;
+        for (Map.Entry<Arena, Double> entry : expected.entrySet()) {
+            double expectedCount = entry.getValue() * SAMPLES;
+            double difference = counts.getOrDefault(entry.getKey(), 0) - expectedCount;
+            chiSquare += difference * difference / expectedCount;
+        }
+
+        double critical = CRITICAL_VALUES[expected.size() - 1];
+        assertTrue("Chi-square " + chiSquare + " exceeds " + critical + " for " + counts, chiSquare < critical);
+    }
+}
@@ -0,0 +1,57 @@
+package com.daegonner.lms;
+
+import com.daegonner.lms.metrics.Metrics;
+import com.daegonner.lms.storage.Storage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the order the {@link PersistenceService} performs queued writes in.
+ */
+public class PersistenceServiceTest {
+
+    @Test
+    public void replacedWriteIsPerformedAfterEarlierWrites() throws InterruptedException {
+        LastManStandingPlugin plugin = mock(LastManStandingPlugin.class);
+        Storage storage = mock(Storage.class);
+        when(plugin.getMetrics()).thenReturn(mock(Metrics.class));
+        when(plugin.getStorage()).thenReturn(storage);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(storage).inTransaction(any());
+
+        PersistenceService service = new PersistenceService(plugin);
+        List<String> writes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Hold up the executor so the writes below are flushed as one batch.
+        service.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+
+        service.update("arena", () -> writes.add("create arena"));
+        service.execute(() -> writes.add("add spawn"));
+        service.update("arena", () -> writes.add("rename arena"));
+        release.countDown();
+        service.shutdown();
+
+        assertEquals(Arrays.asList("add spawn", "rename arena"), writes);
+    }
+}
@@ -0,0 +1,32 @@
+package com.daegonner.lms.entity;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks the vote tallies of a {@link Lobby} follow arenas as they change.
+ */
+public class LobbyTest {
+
+    private final World world = mock(World.class);
+
+    @Test
+    public void voteForRenamedArenaIsRetracted() {
+        Arena arena = new Arena("before", Region.create(new BlockPos(world, 0, 0, 0), new BlockPos(world, 32, 32, 32)));
+        Player player = mock(Player.class);
+        Lobby lobby = new Lobby(1, 0);
+        lobby.vote(player, arena);
+
+        arena.setName("after");
+        assertEquals(1, lobby.getVotes(arena));
+
+        lobby.removeVote(player);
+        assertEquals(0, lobby.getVotes(arena));
+        assertFalse("Renamed arena is still leading", lobby.getHighestVotedArena().isPresent());
+    }
+}
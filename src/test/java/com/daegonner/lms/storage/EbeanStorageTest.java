@@ -0,0 +1,175 @@
+package com.daegonner.lms.storage;
+
+import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.EbeanServerFactory;
+import com.avaje.ebean.config.ServerConfig;
+import com.avaje.ebean.config.dbplatform.H2Platform;
+import com.daegonner.lms.LastManStandingPlugin;
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.ArenaSpawn;
+import com.daegonner.lms.entity.BlockPos;
+import com.daegonner.lms.entity.Region;
+import com.daegonner.lms.model.*;
+import org.bukkit.World;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the {@link EbeanStorage} against an in-memory H2 database, counting
+ * the queries it makes to show what the {@link ModelCache} saves.
+ */
+public class EbeanStorageTest {
+
+    private static final int SPAWNS = 20;
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private final ModelCache cache = new ModelCache();
+    private final World world = mock(World.class);
+    private LastManStandingPlugin plugin;
+    private EbeanStorage storage;
+
+    @Before
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:lms" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+
+        ServerConfig config = new ServerConfig();
+        config.setName("lms" + DATABASES.get());
+        config.setDataSource(countQueries(dataSource));
+        config.setDatabasePlatform(new H2Platform());
+        config.setDdlGenerate(true);
+        config.setDdlRun(true);
+        config.setRegister(false);
+        config.setDefaultServer(false);
+        config.addClass(WorldModel.class);
+        config.addClass(BlockPosModel.class);
+        config.addClass(RegionModel.class);
+        config.addClass(ArenaModel.class);
+        config.addClass(EntityPosModel.class);
+        config.addClass(ArenaSpawnModel.class);
+        config.addClass(LobbyScheduleModel.class);
+        EbeanServer database = EbeanServerFactory.create(config);
+
+        when(world.getName()).thenReturn("world");
+        plugin = mock(LastManStandingPlugin.class);
+        when(plugin.getDatabase()).thenReturn(database);
+        when(plugin.getModelCache()).thenReturn(cache);
+        storage = new EbeanStorage(plugin, () -> {
+        });
+    }
+
+    @Test
+    public void cachedModelsAreResolvedWithoutQueries() {
+        int id = storage.createArena(arena("cached"));
+        List<ArenaSpawn> spawns = spawns();
+        storage.inTransaction(() -> spawns.forEach(spawn -> storage.addSpawn(id, spawn)));
+
+        queries.set(0);
+        storage.inTransaction(() -> spawns.forEach(spawn -> storage.addSpawn(id, spawn)));
+        assertEquals("Queries with every model cached", 0, queries.get());
+    }
+
+    @Test
+    public void uncachedModelsAreQueried() {
+        int id = storage.createArena(arena("uncached"));
+        List<ArenaSpawn> spawns = spawns();
+        storage.inTransaction(() -> spawns.forEach(spawn -> storage.addSpawn(id, spawn)));
+
+        queries.set(0);
+        storage.inTransaction(() -> spawns.forEach(spawn -> {
+            cache.clear();
+            storage.addSpawn(id, spawn);
+        }));
+
+        // The world, entity position, arena and spawn are each queried again.
+        assertTrue("Queries without any model cached: " + queries.get(), queries.get() >= SPAWNS * 4);
+    }
+
+    @Test
+    public void rollbackEvictsOnlyModelsItCached() {
+        int id = storage.createArena(arena("rollback"));
+        ArenaSpawn spawn = new ArenaSpawn(world, 0.5, 64, 0.5, 0, 0);
+
+        try {
+            storage.inTransaction(() -> {
+                storage.addSpawn(id, spawn);
+                throw new IllegalStateException("Rolled back");
+            });
+            fail("The failed work was not rethrown");
+        } catch (IllegalStateException ignored) {
+            // Expected.
+        }
+
+        assertNotNull("Committed arena was evicted", cache.getArena(id));
+        assertNotNull("Committed world was evicted", cache.getWorld("world"));
+        assertNull("Rolled back entity position is still cached",
+                cache.getEntityPos("world", 0.5, 64, 0.5, 0, 0));
+
+        // The spawn is saved again rather than resolved to the rolled back model.
+        storage.inTransaction(() -> storage.addSpawn(id, spawn));
+        ArenaSpawnModel model = ArenaSpawnModel.of(plugin, ArenaModel.of(plugin, id), spawn);
+        assertNotNull("Spawn was not saved", plugin.getDatabase().find(ArenaSpawnModel.class, model.getId()));
+    }
+
+    private Arena arena(String name) {
+        return new Arena(name, Region.create(new BlockPos(world, 0, 0, 0), new BlockPos(world, 32, 128, 32)));
+    }
+
+    private List<ArenaSpawn> spawns() {
+        List<ArenaSpawn> spawns = new ArrayList<>(SPAWNS);
+        for (int i = 0; i < SPAWNS; i++) {
+            spawns.add(new ArenaSpawn(world, i + 0.5, 64, 0.5, 0, 0));
+        }
+        return spawns;
+    }
+
+    /**
+     * Wraps a data source to count every query prepared through it.
+     *
+     * @param dataSource the data source.
+     * @return the counting data source.
+     */
+    private DataSource countQueries(DataSource dataSource) {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(dataSource, method, args);
+                    return result instanceof Connection ? countQueries((Connection) result) : result;
+                });
+    }
+
+    private Connection countQueries(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement") &&
+                            args[0].toString().trim().toLowerCase().startsWith("select")) {
+                        queries.incrementAndGet();
+                    }
+                    return invoke(connection, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
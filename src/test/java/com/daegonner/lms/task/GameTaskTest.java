@@ -0,0 +1,111 @@
+package com.daegonner.lms.task;
+
+import com.daegonner.lms.ArenaManager;
+import com.daegonner.lms.LastManStandingPlugin;
+import com.daegonner.lms.Messenger;
+import com.daegonner.lms.PersistenceService;
+import com.daegonner.lms.entity.Arena;
+import com.daegonner.lms.entity.BlockPos;
+import com.daegonner.lms.entity.Lobby;
+import com.daegonner.lms.entity.Region;
+import com.daegonner.lms.metrics.Metrics;
+import com.daegonner.lms.settings.ArenaSettings;
+import com.daegonner.lms.settings.Settings;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives the {@link GameTask} through a lobby countdown to check how the
+ * lobby is closed.
+ */
+public class GameTaskTest {
+
+    private static final String FAILED_PLAYERS = "Not enough players";
+    private static final String NO_ARENA = "No arena";
+
+    private final World world = mock(World.class);
+    private LastManStandingPlugin plugin;
+    private Settings settings;
+    private Messenger messenger;
+    private ArenaManager arenaManager;
+    private GameTask task;
+
+    @Before
+    public void setUp() {
+        plugin = mock(LastManStandingPlugin.class);
+        settings = mock(Settings.class);
+        messenger = mock(Messenger.class);
+        when(plugin.getSettings()).thenReturn(settings);
+        when(plugin.getMessenger()).thenReturn(messenger);
+        when(plugin.getMetrics()).thenReturn(mock(Metrics.class));
+        when(plugin.getPersistenceService()).thenReturn(mock(PersistenceService.class));
+        when(settings.getLobbyStart()).thenReturn(3600);
+        when(settings.getLobbyCountdown()).thenReturn(0);
+        when(settings.getMaxConcurrentGames()).thenReturn(1);
+        when(settings.getLobbyFailedPlayersMessage()).thenReturn(FAILED_PLAYERS);
+        when(settings.getLobbyNoArenaMessage()).thenReturn(NO_ARENA);
+
+        arenaManager = spy(new ArenaManager(plugin));
+        doReturn(true).when(arenaManager).isReady();
+        when(plugin.getArenaManager()).thenReturn(arenaManager);
+        task = new GameTask(plugin);
+    }
+
+    @Test
+    public void underfilledLobbyIsClosed() throws InterruptedException {
+        addArena("small", 1, 2);
+        addArena("large", 2, 5);
+        Player player = mock(Player.class);
+
+        task.createLobby();
+        Lobby lobby = task.getDefaultLobby().orElseThrow(() -> new AssertionError("No lobby was opened"));
+        assertTrue(task.joinLobby(player, lobby));
+
+        // Let the countdown of zero seconds run out.
+        Thread.sleep(5);
+        task.run();
+
+        assertFalse("Lobby is still open", task.hasLobby());
+        assertFalse("Player is still queued", task.getLobby(player).isPresent());
+        verify(messenger).announce(any(), eq(FAILED_PLAYERS), eq(Messenger.Category.GENERAL));
+    }
+
+    @Test
+    public void lobbyWithoutStoredArenaIsClosed() throws InterruptedException {
+        Arena unstored = addArena("unstored", 0, 1);
+        Player player = mock(Player.class);
+
+        task.createLobby();
+        Lobby lobby = task.getDefaultLobby().orElseThrow(() -> new AssertionError("No lobby was opened"));
+        assertTrue(task.joinLobby(player, lobby));
+        lobby.vote(player, unstored);
+
+        Thread.sleep(5);
+        task.run();
+
+        assertFalse("Lobby is still open", task.hasLobby());
+        assertFalse("Player is still queued", task.getLobby(player).isPresent());
+        verify(messenger).announce(any(), eq(NO_ARENA), eq(Messenger.Category.GENERAL));
+    }
+
+    private Arena addArena(String name, int id, int minPlayers) {
+        int x = arenaManager.getArenas().size() * 64;
+        Arena arena = new Arena(name, Region.create(new BlockPos(world, x, 0, 0), new BlockPos(world, x + 32, 32, 32)));
+        arena.setId(id);
+        arenaManager.addArena(arena);
+
+        ArenaSettings arenaSettings = mock(ArenaSettings.class);
+        when(arenaSettings.getMinPlayers()).thenReturn(minPlayers);
+        when(arenaSettings.getWeight()).thenReturn(1.0);
+        when(settings.getArenaSettings(name)).thenReturn(arenaSettings);
+        return arena;
+    }
+}